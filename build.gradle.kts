@@ -170,6 +170,30 @@ tasks {
         systemProperty("buildDir", layout.buildDirectory.get().asFile)
     }
 
+    test {
+        useJUnitPlatform {
+            excludeTags("performance")
+        }
+    }
+
+    register<Test>("perfTest") {
+        description = "Measures the plugin against a synthetic multi-project build."
+        group = "verification"
+        testClassesDirs = sourceSets.test.get().output.classesDirs
+        classpath = sourceSets.test.get().runtimeClasspath
+        useJUnitPlatform {
+            includeTags("performance")
+        }
+        outputs.upToDateWhen { false }
+
+        listOf("projects", "files", "keys", "warmups", "iterations", "tolerance", "baselines", "updateBaselines").forEach {
+            val value = project.findProperty("perf.$it")
+            if (value != null) {
+                systemProperty("perf.$it", value)
+            }
+        }
+    }
+
     withType<GenerateModuleMetadata> {
         enabled = false
     }
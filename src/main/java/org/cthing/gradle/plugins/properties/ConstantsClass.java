@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import javax.inject.Inject;
+
+import org.gradle.api.Named;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+
+/**
+ * Describes an additional constants class to generate from a set of properties files. Classes are declared using
+ * the {@link PropertyKeyConstantsExtension#getClasses()} container and are generated by the constants generation
+ * task for their source set. A properties file shared by several classes is read only once.
+ */
+public abstract class ConstantsClass implements Named {
+
+    private final String name;
+
+    @Inject
+    public ConstantsClass(final String name) {
+        this.name = name;
+    }
+
+    @Internal
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Obtains the fully qualified name for the generated class (e.g. org.cthing.myapp.InternalConstants).
+     *
+     * @return Fully qualified class name.
+     */
+    @Input
+    public abstract Property<String> getClassname();
+
+    /**
+     * Obtains the properties files whose keys are generated into the class.
+     *
+     * @return Properties files for the class.
+     */
+    @InputFiles
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getSource();
+
+    /**
+     * Obtains the access modifier for the generated constants. The default is
+     * {@link PropertyKeyConstantsExtension#getSourceAccess()}.
+     *
+     * @return Access modifier for the generated constants.
+     */
+    @Input
+    public abstract Property<SourceAccess> getSourceAccess();
+
+    /**
+     * Obtains the layout for the generated source code. The default is
+     * {@link PropertyKeyConstantsExtension#getSourceLayout()}.
+     *
+     * @return Layout for the generated source code.
+     */
+    @Input
+    public abstract Property<SourceLayout> getSourceLayout();
+
+    /**
+     * Obtains the name of the source set to which the class is added. The default is {@code main}.
+     *
+     * @return Name of the source set for the class.
+     */
+    @Internal
+    public abstract Property<String> getSourceSetName();
+}
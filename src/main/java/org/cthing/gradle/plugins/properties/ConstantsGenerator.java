@@ -0,0 +1,1309 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.cthing.annotations.AccessForTesting;
+
+
+/**
+ * Writes the Java or Kotlin source for a constants class from the keys of one or more properties files. The
+ * generator does not depend on the Gradle API and does not read the properties files.
+ */
+final class ConstantsGenerator {
+
+    /**
+     * Maximum length in bytes of the modified UTF-8 encoding of a string constant in a class file, less a margin.
+     */
+    private static final int MAX_CONSTANT_BYTES = 60_000;
+
+    /**
+     * Simple names of the types referred to without qualification by the generated Java source. A nested class with
+     * one of these names would hide the type from the members of the enclosing classes.
+     */
+    private static final Set<String> JAVA_RESERVED_NAMES = Set.of("Object", "String");
+
+    /**
+     * Simple names of the types referred to without qualification by the generated Kotlin source. A nested object
+     * with one of these names would hide the type from the members of the enclosing objects.
+     */
+    private static final Set<String> KOTLIN_RESERVED_NAMES = Set.of("Boolean", "JvmStatic", "List", "Map", "Set",
+                                                                    "String");
+
+    private static final Pattern PROP_SEP_REGEX = Pattern.compile("[.\\-]");
+    private static final Pattern WORD_REGEX = Pattern.compile("[\\W_\\-]+|(?<=\\p{Ll})(?=\\p{Lu})");
+
+    private final String packageName;
+    private final String className;
+    private final SourceAccess sourceAccess;
+    private final SourceLayout sourceLayout;
+    private final boolean keyIndex;
+    private final SourceLanguage sourceLanguage;
+    private final FragmentCache fragmentCache;
+    private final String fragmentVariant;
+    private final KeyPool keyPool;
+
+    /**
+     * Constant in the prefix tree layout.
+     *
+     * @param name Name of the constant
+     * @param key Property key
+     */
+    private record PrefixConstant(String name, String key) {
+    }
+
+    /**
+     * Class in the prefix tree layout, containing the keys that share a prefix.
+     *
+     * @param name Simple name of the class
+     * @param constants Constants for the keys that do not share a longer prefix with another key
+     * @param classes Nested classes for the longer prefixes shared by more than one key
+     */
+    private record PrefixClass(String name, List<PrefixConstant> constants, List<PrefixClass> classes) {
+    }
+
+    /**
+     * Provides the source previously generated for the constants of a properties file. The source generated for a
+     * properties file depends only on its keys and the generator settings, so it can be reused by any class
+     * generated with the same settings.
+     */
+    @FunctionalInterface
+    interface FragmentCache {
+
+        /**
+         * Cache that always generates the source.
+         */
+        FragmentCache NONE = (propertyKeys, variant, generator) -> generator.get();
+
+        /**
+         * Obtains the source for the constants of a properties file.
+         *
+         * @param propertyKeys Keys of the properties file
+         * @param variant Identifies the generator settings that affect the source
+         * @param generator Generates the source if it is not cached
+         * @return Source for the constants of the properties file.
+         */
+        String getFragment(PropertyKeys propertyKeys, String variant, Supplier<String> generator);
+    }
+
+    /**
+     * Constructs a generator for the specified class.
+     *
+     * @param classname Fully qualified name for the generated class (e.g. org.cthing.myapp.PropertyConstants)
+     * @param sourceAccess Access modifier for the generated constants
+     * @param sourceLayout Layout for the generated source code
+     * @param keyIndex Whether to generate the {@code keys()} and {@code contains(String)} methods
+     * @param sourceLanguage Language of the generated source code
+     */
+    ConstantsGenerator(final String classname, final SourceAccess sourceAccess, final SourceLayout sourceLayout,
+                       final boolean keyIndex, final SourceLanguage sourceLanguage) {
+        this(classname, sourceAccess, sourceLayout, keyIndex, sourceLanguage, FragmentCache.NONE);
+    }
+
+    /**
+     * Constructs a generator for the specified class that obtains the source for the constants of each properties
+     * file from the specified cache.
+     *
+     * @param classname Fully qualified name for the generated class (e.g. org.cthing.myapp.PropertyConstants)
+     * @param sourceAccess Access modifier for the generated constants
+     * @param sourceLayout Layout for the generated source code
+     * @param keyIndex Whether to generate the {@code keys()} and {@code contains(String)} methods
+     * @param sourceLanguage Language of the generated source code
+     * @param fragmentCache Source previously generated for the constants of properties files
+     */
+    ConstantsGenerator(final String classname, final SourceAccess sourceAccess, final SourceLayout sourceLayout,
+                       final boolean keyIndex, final SourceLanguage sourceLanguage,
+                       final FragmentCache fragmentCache) {
+        this(classname, sourceAccess, sourceLayout, keyIndex, sourceLanguage, fragmentCache, KeyPool.NONE);
+    }
+
+    /**
+     * Constructs a generator for the specified class that obtains the source for the constants of each properties
+     * file from the specified cache, and refers to the specified key pool for the constants of the properties files
+     * it contains. The key pool is only used for Java source with the {@link SourceLayout#NESTED_CLASSES} layout.
+     *
+     * @param classname Fully qualified name for the generated class (e.g. org.cthing.myapp.PropertyConstants)
+     * @param sourceAccess Access modifier for the generated constants
+     * @param sourceLayout Layout for the generated source code
+     * @param keyIndex Whether to generate the {@code keys()} and {@code contains(String)} methods
+     * @param sourceLanguage Language of the generated source code
+     * @param fragmentCache Source previously generated for the constants of properties files
+     * @param keyPool Shared class containing the constants for common properties files
+     */
+    ConstantsGenerator(final String classname, final SourceAccess sourceAccess, final SourceLayout sourceLayout,
+                       final boolean keyIndex, final SourceLanguage sourceLanguage,
+                       final FragmentCache fragmentCache, final KeyPool keyPool) {
+        final int pos = classname.lastIndexOf('.');
+        assert pos != -1;
+        this.packageName = classname.substring(0, pos);
+        this.className = classname.substring(pos + 1);
+        this.sourceAccess = sourceAccess;
+        this.sourceLayout = sourceLayout;
+        this.keyIndex = keyIndex;
+        this.sourceLanguage = sourceLanguage;
+        this.fragmentCache = fragmentCache;
+        this.fragmentVariant = sourceLanguage + "/" + sourceLayout + "/" + sourceAccess + "/" + keyIndex;
+        this.keyPool = keyPool;
+    }
+
+    /**
+     * Determines the shard to which a properties file is assigned when a constants class is split into multiple
+     * source files. The shard depends only on the name of the file and the number of shards, so a file is assigned
+     * to the same shard from build to build regardless of the other files. Adding or removing files never moves
+     * another file. The hash is {@link String#hashCode()}, which is specified by the Java platform, so the
+     * assignment is the same on every JVM. Changing the number of shards moves most files to a different shard.
+     *
+     * @param filename Name of the properties file without any directory components (e.g. messages.properties)
+     * @param shardCount Number of shards
+     * @return Shard for the properties file, from 0 to {@code shardCount - 1}.
+     */
+    static int getShard(final String filename, final int shardCount) {
+        return Math.floorMod(filename.hashCode(), shardCount);
+    }
+
+    /**
+     * Obtains the fully qualified name of the class generated for a shard of a constants class.
+     *
+     * @param classname Fully qualified name of the constants class (e.g. org.cthing.myapp.PropertyConstants)
+     * @param shard Shard of the constants class
+     * @return Fully qualified name of the shard class (e.g. org.cthing.myapp.PropertyConstantsShard3).
+     */
+    static String getShardClassname(final String classname, final int shard) {
+        return classname + "Shard" + shard;
+    }
+
+    /**
+     * Obtains the path of the generated source file relative to the root of the source tree.
+     *
+     * @return Path of the generated source file (e.g. org/cthing/myapp/PropertyConstants.java).
+     */
+    String getSourcePath() {
+        return this.packageName.replace('.', '/') + '/' + this.className
+                + (this.sourceLanguage == SourceLanguage.KOTLIN ? ".kt" : ".java");
+    }
+
+    /**
+     * Obtains the path of the key index resource relative to the root of the resources.
+     *
+     * @return Path of the key index resource (e.g. META-INF/property-key-constants/org.cthing.myapp.Constants.keys).
+     */
+    String getKeyIndexPath() {
+        return "META-INF/property-key-constants/" + this.packageName + '.' + this.className + ".keys";
+    }
+
+    /**
+     * Obtains the binary names of the generated class and its nested classes. A nested class whose constants are
+     * inherited from the key pool declares no fields of its own, so the pool class and the pool nested class it
+     * extends are also included.
+     *
+     * @param properties Keys for each properties file in the order they appear in the generated class
+     * @return Binary names of the generated classes (e.g. org.cthing.myapp.PropertyConstants$Messages).
+     */
+    List<String> getClassnames(final List<PropertyKeys> properties) {
+        final String classname = this.packageName + '.' + this.className;
+        final List<String> classnames = new ArrayList<>();
+        classnames.add(classname);
+        if (this.sourceLayout == SourceLayout.NESTED_CLASSES) {
+            final List<String> poolClassnames = new ArrayList<>();
+            properties.forEach(propertyKeys -> {
+                final String innerClassName = toCamelCase(getBasename(new File(propertyKeys.filename())));
+                classnames.add(classname + '$' + innerClassName);
+                if (this.sourceLanguage == SourceLanguage.JAVA && this.keyPool.contains(propertyKeys)) {
+                    poolClassnames.add(this.keyPool.getClassname() + '$' + innerClassName);
+                }
+            });
+            if (!poolClassnames.isEmpty()) {
+                classnames.add(this.keyPool.getClassname());
+                classnames.addAll(poolClassnames);
+            }
+        } else if (this.sourceLayout == SourceLayout.PREFIX_TREE) {
+            addPrefixClassnames(classnames, classname, buildPrefixTree(properties).classes());
+        }
+        return classnames;
+    }
+
+    /**
+     * Adds the binary names of the specified prefix tree classes and their nested classes.
+     *
+     * @param classnames Binary names to which the names are added
+     * @param enclosingName Binary name of the class enclosing the prefix tree classes
+     * @param classes Prefix tree classes whose names are to be added
+     */
+    private static void addPrefixClassnames(final List<String> classnames, final String enclosingName,
+                                            final List<PrefixClass> classes) {
+        classes.forEach(cls -> {
+            final String classname = enclosingName + '$' + cls.name();
+            classnames.add(classname);
+            addPrefixClassnames(classnames, classname, cls.classes());
+        });
+    }
+
+    /**
+     * Performs the work of writing the source file containing the properties file keys as constants.
+     *
+     * @param writer Writes the file
+     * @param properties Keys for each properties file in the order they should appear in the generated class
+     */
+    void write(final PrintWriter writer, final List<PropertyKeys> properties) {
+        if (this.sourceLanguage == SourceLanguage.KOTLIN) {
+            writeKotlin(writer, properties);
+            return;
+        }
+
+        final String modifier = this.sourceAccess == SourceAccess.PUBLIC ? "public " : "";
+        final String propFilesComment = properties.stream()
+                                                  .map(PropertyKeys::filename)
+                                                  .sorted()
+                                                  .map(fname -> " *   <li>" + fname + "</li>")
+                                                  .collect(Collectors.joining("\n"));
+        writer.format("""
+                      //
+                      // DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+                      //
+
+                      package %s;
+
+                      /**
+                       * Constants for property keys in:
+                       * <ul>
+                      %s
+                       * </ul>
+                       */
+                      @SuppressWarnings("all")
+                      %sfinal class %s {
+                      """, this.packageName, propFilesComment, modifier, this.className);
+
+        if (this.sourceLayout == SourceLayout.PREFIX_TREE) {
+            final PrefixClass tree = buildPrefixTree(properties);
+            if (!tree.constants().isEmpty()) {
+                writer.println();
+            }
+            tree.constants().forEach(constant -> writer.format("    %sstatic final String %s = \"%s\";%n", modifier,
+                                                               constant.name(), constant.key()));
+            tree.classes().forEach(cls -> writePrefixClass(writer, "    ", modifier, cls));
+        } else {
+            writeFragments(writer, properties, (out, propertyKeys) -> {
+                switch (this.sourceLayout) {
+                    case NESTED_CLASSES -> writeNestedClass(out, modifier, propertyKeys);
+                    case FLAT_WITH_PREFIX -> writeFlatWithPrefix(out, modifier, propertyKeys);
+                    case FLAT_WITHOUT_PREFIX -> writeFlatWithoutPrefix(out, modifier, propertyKeys);
+                    default -> throw new IllegalStateException("Unknown source layout");
+                }
+            });
+        }
+
+        if (this.keyIndex && this.sourceLayout != SourceLayout.NESTED_CLASSES) {
+            final List<String> keys = properties.stream()
+                                                .flatMap(propertyKeys -> propertyKeys.keys().stream())
+                                                .sorted()
+                                                .distinct()
+                                                .toList();
+            writeKeyIndexMembers(writer, "    ", modifier, keys);
+        }
+
+        writer.format("""
+
+                          private %s() { }
+                      }
+                      """, this.className);
+    }
+
+    /**
+     * Writes the source file for a key pool class. The pool class and its nested classes may be extended, so that a
+     * nested class in a constants class can inherit the constants for a properties file rather than repeating the
+     * key literals. Static fields are inherited, so the constants are referenced through the constants class in the
+     * same way as constants declared in it. The pool class, its nested classes and its constants have the access of
+     * the generator, so that a pool used only by package private constants classes in its package does not expose
+     * the constants to other packages.
+     *
+     * @param writer Writes the file
+     * @param properties Keys for each properties file in the pool
+     */
+    void writeKeyPool(final PrintWriter writer, final List<PropertyKeys> properties) {
+        final String modifier = this.sourceAccess == SourceAccess.PUBLIC ? "public " : "";
+        final String propFilesComment = properties.stream()
+                                                  .map(PropertyKeys::filename)
+                                                  .sorted()
+                                                  .map(fname -> " *   <li>" + fname + "</li>")
+                                                  .collect(Collectors.joining("\n"));
+        writer.format("""
+                      //
+                      // DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+                      //
+
+                      package %s;
+
+                      /**
+                       * Shared constants for property keys in:
+                       * <ul>
+                      %s
+                       * </ul>
+                       */
+                      @SuppressWarnings("all")
+                      %sclass %s {
+                      """, this.packageName, propFilesComment, modifier, this.className);
+
+        properties.forEach(propertyKeys -> {
+            final String innerClassName = toCamelCase(getBasename(new File(propertyKeys.filename())));
+            writer.format("""
+
+                              %sstatic class %s {
+                          """, modifier, innerClassName);
+            propertyKeys.keys().forEach(propName -> writer.format("        %sstatic final String %s = \"%s\";%n",
+                                                                  modifier, toConstantName(propName), propName));
+            writer.format("""
+
+                                  protected %s() { }
+                              }
+                          """, innerClassName);
+        });
+
+        writer.format("""
+
+                          protected %s() { }
+                      }
+                      """, this.className);
+    }
+
+    /**
+     * Writes the Kotlin source file containing the properties file keys as {@code const val} properties of an object.
+     * The layouts correspond to those of the Java class, with nested objects in place of nested classes. Package
+     * private access is written as {@code internal}, which is the closest Kotlin visibility.
+     *
+     * @param writer Writes the file
+     * @param properties Keys for each properties file in the order they should appear in the generated object
+     */
+    private void writeKotlin(final PrintWriter writer, final List<PropertyKeys> properties) {
+        final String modifier = this.sourceAccess == SourceAccess.PUBLIC ? "" : "internal ";
+        final String propFilesComment = properties.stream()
+                                                  .map(PropertyKeys::filename)
+                                                  .sorted()
+                                                  .map(fname -> " * - " + fname)
+                                                  .collect(Collectors.joining("\n"));
+        writer.format("""
+                      //
+                      // DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+                      //
+
+                      package %s
+
+                      /**
+                       * Constants for property keys in:
+                      %s
+                       */
+                      %sobject %s {
+                      """, this.packageName, propFilesComment, modifier, this.className);
+
+        if (this.sourceLayout == SourceLayout.PREFIX_TREE) {
+            final PrefixClass tree = buildPrefixTree(properties);
+            if (!tree.constants().isEmpty()) {
+                writer.println();
+            }
+            tree.constants().forEach(constant -> writeKotlinConstant(writer, "    ", modifier, constant.name(),
+                                                                     constant.key()));
+            tree.classes().forEach(cls -> writeKotlinPrefixObject(writer, "    ", modifier, cls));
+        } else {
+            writeFragments(writer, properties, (out, propertyKeys) -> {
+                switch (this.sourceLayout) {
+                    case NESTED_CLASSES -> {
+                        out.format("%n    %sobject %s {%n", modifier,
+                                   toCamelCase(getBasename(new File(propertyKeys.filename()))));
+                        propertyKeys.keys().forEach(propName -> writeKotlinConstant(out, "        ", modifier,
+                                                                                    toConstantName(propName),
+                                                                                    propName));
+                        if (this.keyIndex) {
+                            writeKotlinKeyIndexMembers(out, "        ", propertyKeys.keys());
+                        }
+                        out.println("    }");
+                    }
+                    case FLAT_WITH_PREFIX -> {
+                        final String prefix = toUpperCase(getBasename(new File(propertyKeys.filename())));
+                        out.println();
+                        propertyKeys.keys().forEach(propName -> writeKotlinConstant(out, "    ", modifier,
+                                                                                    prefix + '_'
+                                                                                    + toConstantName(propName),
+                                                                                    propName));
+                    }
+                    case FLAT_WITHOUT_PREFIX -> {
+                        out.println();
+                        propertyKeys.keys().forEach(propName -> writeKotlinConstant(out, "    ", modifier,
+                                                                                    toConstantName(propName),
+                                                                                    propName));
+                    }
+                    default -> throw new IllegalStateException("Unknown source layout");
+                }
+            });
+        }
+
+        if (this.keyIndex && this.sourceLayout != SourceLayout.NESTED_CLASSES) {
+            final List<String> keys = properties.stream()
+                                                .flatMap(propertyKeys -> propertyKeys.keys().stream())
+                                                .sorted()
+                                                .distinct()
+                                                .toList();
+            writeKotlinKeyIndexMembers(writer, "    ", keys);
+        }
+
+        writer.println("}");
+    }
+
+    /**
+     * Writes a prefix tree class as a Kotlin object with its constants and nested objects.
+     *
+     * @param writer Writes the file
+     * @param indent Indentation of the object declaration
+     * @param modifier Visibility modifier string
+     * @param cls Prefix tree class to write
+     */
+    private static void writeKotlinPrefixObject(final PrintWriter writer, final String indent, final String modifier,
+                                                final PrefixClass cls) {
+        writer.format("%n%s%sobject %s {%n", indent, modifier, cls.name());
+        cls.constants().forEach(constant -> writeKotlinConstant(writer, indent + "    ", modifier, constant.name(),
+                                                                constant.key()));
+        cls.classes().forEach(nested -> writeKotlinPrefixObject(writer, indent + "    ", modifier, nested));
+        writer.format("%s}%n", indent);
+    }
+
+    /**
+     * Writes a Kotlin {@code const val} property for a property key.
+     *
+     * @param writer Writes the file
+     * @param indent Indentation of the property
+     * @param modifier Visibility modifier string
+     * @param constantName Name of the property
+     * @param propName Property key
+     */
+    private static void writeKotlinConstant(final PrintWriter writer, final String indent, final String modifier,
+                                            final String constantName, final String propName) {
+        final StringBuilder value = new StringBuilder("\"");
+        appendKotlinEscaped(value, propName);
+        writer.format("%s%sconst val %s = %s\"%n", indent, modifier, constantName, value);
+    }
+
+    /**
+     * Writes the Kotlin equivalents of the {@code keys()}, {@code contains(String)} and
+     * {@code validate(Map, Consumer, Consumer)} methods, and the sorted list of keys backing them. The functions are
+     * annotated with {@code @JvmStatic} so that they are called from Java in the same way as the generated Java
+     * methods. The functions have no visibility modifier, because the JVM names of {@code internal} functions are
+     * mangled. An {@code internal} object still restricts the functions to the module.
+     *
+     * @param writer Writes the file
+     * @param indent Indentation of the members
+     * @param keys Keys in ascending order
+     */
+    private static void writeKotlinKeyIndexMembers(final PrintWriter writer, final String indent,
+                                                   final List<String> keys) {
+        writer.println();
+        if (keys.isEmpty()) {
+            writer.format("%sprivate val keys: List<String> = emptyList()%n", indent);
+        } else {
+            final String separator = getKeySeparator(keys);
+            final StringBuilder separatorLiteral = new StringBuilder("\"");
+            appendKotlinEscaped(separatorLiteral, separator);
+            separatorLiteral.append('"');
+
+            final List<String> chunks = toKotlinChunks(keys, separator);
+            writer.format("%sprivate val keys: List<String> = java.util.Collections.unmodifiableList(%n", indent);
+            if (chunks.size() == 1) {
+                writer.format("%s        %s.split(%s))%n", indent, chunks.get(0), separatorLiteral);
+            } else {
+                writer.format("%s        listOf(%n", indent);
+                for (int i = 0; i < chunks.size(); i++) {
+                    writer.format("%s                %s%s%n", indent, chunks.get(i),
+                                  i < chunks.size() - 1
+                                  ? ","
+                                  : ").joinToString(" + separatorLiteral + ").split(" + separatorLiteral + "))");
+                }
+            }
+        }
+        writer.format("%sprivate val keySet: Set<String> by lazy { java.util.HashSet(keys) }%n", indent);
+
+        writer.format("""
+
+                      %1$s/**
+                      %1$s * Obtains the property keys in ascending order as defined by [String.compareTo].
+                      %1$s *
+                      %1$s * @return Unmodifiable list of the property keys.
+                      %1$s */
+                      %1$s@JvmStatic
+                      %1$sfun keys(): List<String> = keys
+
+                      %1$s/**
+                      %1$s * Determines whether the specified string is one of the property keys.
+                      %1$s *
+                      %1$s * @param key String to find
+                      %1$s * @return `true` if the string is a property key.
+                      %1$s */
+                      %1$s@JvmStatic
+                      %1$sfun contains(key: String): Boolean = java.util.Collections.binarySearch(keys, key) >= 0
+
+                      %1$s/**
+                      %1$s * Validates the keys of the specified map (e.g. a [java.util.Properties] object) against
+                      %1$s * the property keys. When the map is a [java.util.SortedMap] in natural order, the keys are
+                      %1$s * compared in a single merge pass. Otherwise, each property key is looked up in the map,
+                      %1$s * and only if the map has more keys than were found are its keys looked up in a hash set
+                      %1$s * of the property keys. No intermediate collections are created, other than the hash set,
+                      %1$s * which is created once. Defaults of a [java.util.Properties] object are not considered.
+                      %1$s *
+                      %1$s * @param properties Map whose keys are to be validated
+                      %1$s * @param missing Called with each property key that is not in the map
+                      %1$s * @param unknown Called with each key in the map that is not a property key
+                      %1$s * @return `true` if the keys of the map are exactly the property keys.
+                      %1$s */
+                      %1$s@JvmStatic
+                      %1$sfun validate(properties: Map<*, *>, missing: java.util.function.Consumer<String>,
+                      %1$s             unknown: java.util.function.Consumer<String>): Boolean {
+                      %1$s    var valid = true
+                      %1$s    val count = keys.size
+                      %1$s    if (properties is java.util.SortedMap<*, *> && properties.comparator() == null) {
+                      %1$s        var index = 0
+                      %1$s        for (key in properties.keys) {
+                      %1$s            if (key is String) {
+                      %1$s                while (index < count && keys[index] < key) {
+                      %1$s                    missing.accept(keys[index++])
+                      %1$s                    valid = false
+                      %1$s                }
+                      %1$s                if (index < count && keys[index] == key) {
+                      %1$s                    index++
+                      %1$s                    continue
+                      %1$s                }
+                      %1$s            }
+                      %1$s            unknown.accept(key.toString())
+                      %1$s            valid = false
+                      %1$s        }
+                      %1$s        while (index < count) {
+                      %1$s            missing.accept(keys[index++])
+                      %1$s            valid = false
+                      %1$s        }
+                      %1$s    } else {
+                      %1$s        var found = 0
+                      %1$s        for (key in keys) {
+                      %1$s            if (properties.containsKey(key)) {
+                      %1$s                found++
+                      %1$s            } else {
+                      %1$s                missing.accept(key)
+                      %1$s                valid = false
+                      %1$s            }
+                      %1$s        }
+                      %1$s        if (found < properties.size) {
+                      %1$s            for (key in properties.keys) {
+                      %1$s                if (key !is String || key !in keySet) {
+                      %1$s                    unknown.accept(key.toString())
+                      %1$s                    valid = false
+                      %1$s                }
+                      %1$s            }
+                      %1$s        }
+                      %1$s    }
+                      %1$s    return valid
+                      %1$s}
+                      """, indent);
+    }
+
+    /**
+     * Writes the key index resource. The index is UTF-8 text. For each properties file, a line consisting of
+     * {@code @} followed by the file name is followed by the keys in the file, one per line, in ascending order.
+     * Within a key, a backslash, line feed and carriage return are written as {@code \\}, {@code \n} and
+     * {@code \r}, respectively, and a leading {@code @} is written as {@code \@}.
+     *
+     * @param writer Writes the resource
+     * @param properties Keys for each properties file
+     */
+    void writeKeyIndex(final PrintWriter writer, final List<PropertyKeys> properties) {
+        properties.forEach(propertyKeys -> {
+            writer.print('@');
+            writer.print(propertyKeys.filename());
+            writer.print('\n');
+            propertyKeys.keys().forEach(key -> {
+                final String escaped = key.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+                writer.print(escaped.startsWith("@") ? "\\" + escaped : escaped);
+                writer.print('\n');
+            });
+        });
+    }
+
+    /**
+     * Writes the constants for each properties file. The source for the constants of a properties file is obtained
+     * from the fragment cache, and is only generated if it has not been cached.
+     *
+     * @param writer Writes the file
+     * @param properties Keys for each properties file
+     * @param fragmentWriter Writes the constants for a single properties file
+     */
+    private void writeFragments(final PrintWriter writer, final List<PropertyKeys> properties,
+                                final FragmentWriter fragmentWriter) {
+        properties.forEach(propertyKeys -> writer.print(
+                this.fragmentCache.getFragment(propertyKeys, getFragmentVariant(propertyKeys), () -> {
+                    final StringWriter fragment = new StringWriter();
+                    try (PrintWriter printWriter = new PrintWriter(fragment)) {
+                        fragmentWriter.write(printWriter, propertyKeys);
+                    }
+                    return fragment.toString();
+                })));
+    }
+
+    /**
+     * Identifies the generator settings that affect the source for the constants of the specified properties file.
+     *
+     * @param propertyKeys Keys of the properties file
+     * @return Generator variant for the properties file.
+     */
+    private String getFragmentVariant(final PropertyKeys propertyKeys) {
+        return this.keyPool.contains(propertyKeys)
+               ? this.fragmentVariant + "/" + this.keyPool.getClassname()
+               : this.fragmentVariant;
+    }
+
+    /**
+     * Writes the constants for a single properties file.
+     */
+    @FunctionalInterface
+    private interface FragmentWriter {
+
+        /**
+         * Writes the constants for the specified properties file.
+         *
+         * @param writer Writes the constants
+         * @param propertyKeys Keys of the properties file
+         */
+        void write(PrintWriter writer, PropertyKeys propertyKeys);
+    }
+
+    /**
+     * Writes the property key constants for a property file wrapped in a nested class.
+     *
+     * @param writer Writes the file
+     * @param modifier Access modifier string
+     * @param propertyKeys Keys of the properties file
+     */
+    private void writeNestedClass(final PrintWriter writer, final String modifier, final PropertyKeys propertyKeys) {
+        final String innerClassName = toCamelCase(getBasename(new File(propertyKeys.filename())));
+
+        if (this.keyPool.contains(propertyKeys)) {
+            // The constants are inherited from the key pool, so the key literals are not repeated in this class.
+            writer.format("""
+
+                              %sstatic final class %s extends %s.%s {
+                          """, modifier, innerClassName, this.keyPool.getClassname(), innerClassName);
+        } else {
+            writer.format("""
+
+                              %sstatic final class %s {
+                          """, modifier, innerClassName);
+
+            propertyKeys.keys().forEach(propName -> {
+                final String constantName = toConstantName(propName);
+                writer.format("        %sstatic final String %s = \"%s\";%n", modifier, constantName, propName);
+            });
+        }
+
+        if (this.keyIndex) {
+            writeKeyIndexMembers(writer, "        ", modifier, propertyKeys.keys());
+        }
+
+        writer.format("""
+
+                              private %s() { }
+                          }
+                      """, innerClassName);
+    }
+
+    /**
+     * Writes a prefix tree class as a static nested class with its constants and nested classes.
+     *
+     * @param writer Writes the file
+     * @param indent Indentation of the class declaration
+     * @param modifier Access modifier string
+     * @param cls Prefix tree class to write
+     */
+    private static void writePrefixClass(final PrintWriter writer, final String indent, final String modifier,
+                                         final PrefixClass cls) {
+        writer.format("%n%s%sstatic final class %s {%n", indent, modifier, cls.name());
+        cls.constants().forEach(constant -> writer.format("%s    %sstatic final String %s = \"%s\";%n", indent,
+                                                          modifier, constant.name(), constant.key()));
+        cls.classes().forEach(nested -> writePrefixClass(writer, indent + "    ", modifier, nested));
+        writer.format("%n%s    private %s() { }%n%s}%n", indent, cls.name(), indent);
+    }
+
+    /**
+     * Builds the prefix tree of the keys of the specified properties files. Keys appearing in more than one file
+     * are included once.
+     *
+     * @param properties Keys for each properties file
+     * @return Prefix tree whose root is the generated class.
+     */
+    private PrefixClass buildPrefixTree(final List<PropertyKeys> properties) {
+        final List<String> keys = properties.stream()
+                                            .flatMap(propertyKeys -> propertyKeys.keys().stream())
+                                            .sorted()
+                                            .distinct()
+                                            .toList();
+        return buildPrefixClass(this.className, keys, 0, this.sourceLanguage == SourceLanguage.KOTLIN
+                                                         ? KOTLIN_RESERVED_NAMES
+                                                         : JAVA_RESERVED_NAMES);
+    }
+
+    /**
+     * Builds a prefix tree class from keys sharing a prefix. The keys are grouped by their next dot separated
+     * segment. A group with a single key becomes a constant named from the remainder of the key, so a nested class
+     * is only created for a segment shared by two or more keys. A key ending at a shared segment becomes a constant
+     * named from the segment alongside the nested class. Names that are not valid identifiers are prefixed with an
+     * underscore, and names that would clash with another member, an enclosing class or a type used by the generated
+     * source (e.g. {@code String}) are suffixed with underscores.
+     *
+     * @param name Simple name of the class
+     * @param keys Sorted keys sharing the prefix of the class
+     * @param prefixLength Length of the shared prefix, including its trailing dot
+     * @param enclosingNames Simple names of the classes enclosing the class and of the types used by the generated
+     *      source, which nested classes must not hide
+     * @return Prefix tree class for the keys.
+     */
+    private static PrefixClass buildPrefixClass(final String name, final List<String> keys, final int prefixLength,
+                                                final Set<String> enclosingNames) {
+        final Map<String, List<String>> groups = new TreeMap<>();
+        keys.forEach(key -> {
+            final int end = key.indexOf('.', prefixLength);
+            groups.computeIfAbsent(key.substring(prefixLength, end == -1 ? key.length() : end),
+                                   segment -> new ArrayList<>()).add(key);
+        });
+
+        final Set<String> names = new HashSet<>();
+        final List<PrefixConstant> constants = new ArrayList<>();
+        final Map<String, List<String>> branches = new LinkedHashMap<>();
+        groups.forEach((segment, groupKeys) -> {
+            final int segmentEnd = prefixLength + segment.length();
+            final List<String> branchKeys = new ArrayList<>();
+            for (final String key : groupKeys) {
+                if (key.length() == segmentEnd) {
+                    constants.add(new PrefixConstant(toUniqueName(toIdentifier(toConstantName(segment), "EMPTY"),
+                                                                  names), key));
+                } else {
+                    branchKeys.add(key);
+                }
+            }
+
+            if (branchKeys.size() == 1) {
+                final String key = branchKeys.get(0);
+                constants.add(new PrefixConstant(toUniqueName(toIdentifier(toConstantName(key.substring(prefixLength)),
+                                                                           "EMPTY"), names), key));
+            } else if (branchKeys.size() > 1) {
+                branches.put(segment, branchKeys);
+            }
+        });
+
+        final Set<String> nestedEnclosingNames = new HashSet<>(enclosingNames);
+        nestedEnclosingNames.add(name);
+        names.addAll(nestedEnclosingNames);
+
+        final List<PrefixClass> classes = new ArrayList<>();
+        branches.forEach((segment, branchKeys) -> {
+            final String className = toUniqueName(toIdentifier(toCamelCase(segment), "Empty"), names);
+            classes.add(buildPrefixClass(className, branchKeys, prefixLength + segment.length() + 1,
+                                         nestedEnclosingNames));
+        });
+
+        return new PrefixClass(name, constants, classes);
+    }
+
+    /**
+     * Makes the specified name a valid identifier start by prefixing it with an underscore if necessary.
+     *
+     * @param name Name to check
+     * @param emptyName Name to use if the specified name is empty
+     * @return Name starting with a valid identifier character.
+     */
+    private static String toIdentifier(final String name, final String emptyName) {
+        if (name.isEmpty()) {
+            return emptyName;
+        }
+        return Character.isJavaIdentifierStart(name.charAt(0)) ? name : "_" + name;
+    }
+
+    /**
+     * Makes the specified name unique by appending underscores until it is not among the names already used. The
+     * resulting name is added to the used names.
+     *
+     * @param name Name to make unique
+     * @param names Names already used
+     * @return Unique name.
+     */
+    private static String toUniqueName(final String name, final Set<String> names) {
+        String uniqueName = name;
+        while (!names.add(uniqueName)) {
+            uniqueName += "_";
+        }
+        return uniqueName;
+    }
+
+    /**
+     * Write the property key constants for a property file as top level fields with a prefix based on the property
+     * file basename added to each constant.
+     *
+     * @param writer Writes the file
+     * @param modifier Access modifier string
+     * @param propertyKeys Keys of the properties file
+     */
+    private static void writeFlatWithPrefix(final PrintWriter writer, final String modifier,
+                                            final PropertyKeys propertyKeys) {
+        final String prefix = toUpperCase(getBasename(new File(propertyKeys.filename())));
+
+        writer.println();
+        propertyKeys.keys().forEach(propName -> {
+            final String constantName = toConstantName(propName);
+            writer.format("    %sstatic final String %s_%s = \"%s\";%n", modifier, prefix, constantName, propName);
+        });
+    }
+
+    /**
+     * Write the property key constants for a property file as top level fields. Beware that if multiple property
+     * files are specified, constant names may collide using this layout.
+     *
+     * @param writer Writes the file
+     * @param modifier Access modifier string
+     * @param propertyKeys Keys of the properties file
+     */
+    private static void writeFlatWithoutPrefix(final PrintWriter writer, final String modifier,
+                                               final PropertyKeys propertyKeys) {
+        writer.println();
+        propertyKeys.keys().forEach(propName -> {
+            final String constantName = toConstantName(propName);
+            writer.format("    %sstatic final String %s = \"%s\";%n", modifier, constantName, propName);
+        });
+    }
+
+    /**
+     * Writes the {@code keys()}, {@code contains(String)} and {@code validate(Map, Consumer, Consumer)} methods, and
+     * the sorted list of keys backing them. The names are lower case so they cannot collide with the upper case
+     * constants. The generated code only uses Java 8 language features and APIs. The list is built from string
+     * constants rather than one element at a time, so the number of keys is not limited by the size of the static
+     * initializer.
+     *
+     * @param writer Writes the file
+     * @param indent Indentation of the members
+     * @param modifier Access modifier string
+     * @param keys Keys in ascending order
+     */
+    private static void writeKeyIndexMembers(final PrintWriter writer, final String indent, final String modifier,
+                                             final List<String> keys) {
+        writer.println();
+        if (keys.isEmpty()) {
+            writer.format("%sprivate static final java.util.List<String> keys = java.util.Collections.emptyList();%n",
+                          indent);
+        } else {
+            final String separator = getKeySeparator(keys);
+            final StringBuilder separatorLiteral = new StringBuilder("\"");
+            appendEscaped(separatorLiteral, separator);
+            separatorLiteral.append('"');
+
+            final List<String> chunks = toChunks(keys, separator);
+            writer.format("%sprivate static final java.util.List<String> keys =%n", indent);
+            writer.format("%s        java.util.Collections.unmodifiableList(java.util.Arrays.asList(%n", indent);
+            if (chunks.size() == 1) {
+                writer.format("%s                %s.split(%s, -1)));%n", indent, chunks.get(0), separatorLiteral);
+            } else {
+                writer.format("%s                String.join(%s,%n", indent, separatorLiteral);
+                for (int i = 0; i < chunks.size(); i++) {
+                    writer.format("%s                            %s%s%n", indent, chunks.get(i),
+                                  i < chunks.size() - 1 ? "," : ").split(" + separatorLiteral + ", -1)));");
+                }
+            }
+        }
+
+        writer.format("%sprivate static volatile java.util.Set<String> keySet;%n", indent);
+
+        writer.format("""
+
+                      %1$s/**
+                      %1$s * Obtains the property keys in ascending order as defined by {@link String#compareTo}.
+                      %1$s *
+                      %1$s * @return Unmodifiable list of the property keys.
+                      %1$s */
+                      %1$s%2$sstatic java.util.List<String> keys() {
+                      %1$s    return keys;
+                      %1$s}
+
+                      %1$s/**
+                      %1$s * Determines whether the specified string is one of the property keys.
+                      %1$s *
+                      %1$s * @param key String to find
+                      %1$s * @return {@code true} if the string is a property key.
+                      %1$s */
+                      %1$s%2$sstatic boolean contains(final String key) {
+                      %1$s    return java.util.Collections.binarySearch(keys, key) >= 0;
+                      %1$s}
+
+                      %1$s/**
+                      %1$s * Validates the keys of the specified map (e.g. a {@link java.util.Properties} object)
+                      %1$s * against the property keys. When the map is a {@link java.util.SortedMap} in natural
+                      %1$s * order, the keys are compared in a single merge pass. Otherwise, each property key is
+                      %1$s * looked up in the map, and only if the map has more keys than were found are its keys
+                      %1$s * looked up in a hash set of the property keys. No intermediate collections are created,
+                      %1$s * other than the hash set, which is created once. Defaults of a
+                      %1$s * {@link java.util.Properties} object are not considered.
+                      %1$s *
+                      %1$s * @param properties Map whose keys are to be validated
+                      %1$s * @param missing Called with each property key that is not in the map
+                      %1$s * @param unknown Called with each key in the map that is not a property key
+                      %1$s * @return {@code true} if the keys of the map are exactly the property keys.
+                      %1$s */
+                      %1$s%2$sstatic boolean validate(final java.util.Map<?, ?> properties,
+                      %1$s                                final java.util.function.Consumer<String> missing,
+                      %1$s                                final java.util.function.Consumer<String> unknown) {
+                      %1$s    boolean valid = true;
+                      %1$s    final int count = keys.size();
+                      %1$s    if (properties instanceof java.util.SortedMap
+                      %1$s            && ((java.util.SortedMap<?, ?>)properties).comparator() == null) {
+                      %1$s        int index = 0;
+                      %1$s        for (final Object key : properties.keySet()) {
+                      %1$s            if (key instanceof String) {
+                      %1$s                final String name = (String)key;
+                      %1$s                while (index < count && keys.get(index).compareTo(name) < 0) {
+                      %1$s                    missing.accept(keys.get(index++));
+                      %1$s                    valid = false;
+                      %1$s                }
+                      %1$s                if (index < count && keys.get(index).equals(name)) {
+                      %1$s                    index++;
+                      %1$s                    continue;
+                      %1$s                }
+                      %1$s            }
+                      %1$s            unknown.accept(String.valueOf(key));
+                      %1$s            valid = false;
+                      %1$s        }
+                      %1$s        while (index < count) {
+                      %1$s            missing.accept(keys.get(index++));
+                      %1$s            valid = false;
+                      %1$s        }
+                      %1$s    } else {
+                      %1$s        int found = 0;
+                      %1$s        for (int index = 0; index < count; index++) {
+                      %1$s            if (properties.containsKey(keys.get(index))) {
+                      %1$s                found++;
+                      %1$s            } else {
+                      %1$s                missing.accept(keys.get(index));
+                      %1$s                valid = false;
+                      %1$s            }
+                      %1$s        }
+                      %1$s        if (found < properties.size()) {
+                      %1$s            final java.util.Set<String> set = keySet();
+                      %1$s            for (final Object key : properties.keySet()) {
+                      %1$s                if (!set.contains(key)) {
+                      %1$s                    unknown.accept(String.valueOf(key));
+                      %1$s                    valid = false;
+                      %1$s                }
+                      %1$s            }
+                      %1$s        }
+                      %1$s    }
+                      %1$s    return valid;
+                      %1$s}
+
+                      %1$s/**
+                      %1$s * Obtains the property keys as a hash set, which is created the first time a map that is
+                      %1$s * not sorted is found to have keys other than the property keys.
+                      %1$s *
+                      %1$s * @return Unmodifiable set of the property keys.
+                      %1$s */
+                      %1$sprivate static java.util.Set<String> keySet() {
+                      %1$s    java.util.Set<String> set = keySet;
+                      %1$s    if (set == null) {
+                      %1$s        set = java.util.Collections.unmodifiableSet(new java.util.HashSet<String>(keys));
+                      %1$s        keySet = set;
+                      %1$s    }
+                      %1$s    return set;
+                      %1$s}
+                      """, indent, modifier);
+    }
+
+    /**
+     * Selects the character separating the keys in the string literals backing the generated key list. A key may
+     * contain any character, including NUL, which can be written as {@code \u0000} in a properties file or
+     * {@code "\0"} in a YAML file. The separator is therefore the first character that is not printable ASCII, not a
+     * surrogate and not used by any of the keys. This is NUL unless a key contains NUL. Because the separator is not
+     * printable ASCII, it is never a regular expression metacharacter, and can be passed to {@code String.split}.
+     *
+     * @param keys Keys to be joined
+     * @return Character separating the keys.
+     */
+    @AccessForTesting
+    static String getKeySeparator(final List<String> keys) {
+        final BitSet used = new BitSet(Character.MAX_VALUE + 1);
+        keys.forEach(key -> key.chars().forEach(used::set));
+        for (char ch = 0; ch < Character.MAX_VALUE; ch++) {
+            if (!used.get(ch) && (ch < 0x20 || ch >= 0x7F) && !Character.isSurrogate(ch)) {
+                return String.valueOf(ch);
+            }
+        }
+        throw new IllegalArgumentException("The keys use every character, so there is no character to separate them");
+    }
+
+    /**
+     * Joins the keys into Java string literals, separated by the specified character, such that each literal fits in
+     * a class file string constant.
+     *
+     * @param keys Keys to join
+     * @param separator Character separating the keys, which is not used by any of the keys
+     * @return Java string literals containing the keys.
+     */
+    private static List<String> toChunks(final List<String> keys, final String separator) {
+        final int separatorBytes = getModifiedUtf8Length(separator);
+        final List<String> chunks = new ArrayList<>();
+        final StringBuilder chunk = new StringBuilder("\"");
+        int chunkBytes = 0;
+        for (final String key : keys) {
+            final int keyBytes = getModifiedUtf8Length(key) + separatorBytes;
+            if (chunkBytes > 0 && chunkBytes + keyBytes > MAX_CONSTANT_BYTES) {
+                chunks.add(chunk.append('"').toString());
+                chunk.setLength(1);
+                chunkBytes = 0;
+            }
+            if (chunkBytes > 0) {
+                appendEscaped(chunk, separator);
+            }
+            appendEscaped(chunk, key);
+            chunkBytes += keyBytes;
+        }
+        chunks.add(chunk.append('"').toString());
+        return chunks;
+    }
+
+    /**
+     * Obtains the length of the modified UTF-8 encoding of the specified string, which is the encoding of string
+     * constants in a class file.
+     *
+     * @param str String whose encoded length is desired
+     * @return Number of bytes in the encoded string.
+     */
+    private static int getModifiedUtf8Length(final String str) {
+        int length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            if (ch >= 0x01 && ch <= 0x7F) {
+                length++;
+            } else if (ch <= 0x7FF) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Appends the specified string to a Java string literal, escaping characters as needed. Control characters are
+     * written as three digit octal escapes so that a following digit is not taken as part of the escape.
+     *
+     * @param builder Java string literal being built
+     * @param str String to append
+     */
+    private static void appendEscaped(final StringBuilder builder, final String str) {
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            switch (ch) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                default -> {
+                    if (ch < 0x20 || ch == 0x7F) {
+                        builder.append(String.format("\\%03o", (int)ch));
+                    } else {
+                        builder.append(ch);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins the keys into Kotlin string literals, separated by the specified character, such that each literal fits
+     * in a class file string constant.
+     *
+     * @param keys Keys to join
+     * @param separator Character separating the keys, which is not used by any of the keys
+     * @return Kotlin string literals containing the keys.
+     */
+    private static List<String> toKotlinChunks(final List<String> keys, final String separator) {
+        final int separatorBytes = getModifiedUtf8Length(separator);
+        final List<String> chunks = new ArrayList<>();
+        final StringBuilder chunk = new StringBuilder("\"");
+        int chunkBytes = 0;
+        for (final String key : keys) {
+            final int keyBytes = getModifiedUtf8Length(key) + separatorBytes;
+            if (chunkBytes > 0 && chunkBytes + keyBytes > MAX_CONSTANT_BYTES) {
+                chunks.add(chunk.append('"').toString());
+                chunk.setLength(1);
+                chunkBytes = 0;
+            }
+            if (chunkBytes > 0) {
+                appendKotlinEscaped(chunk, separator);
+            }
+            appendKotlinEscaped(chunk, key);
+            chunkBytes += keyBytes;
+        }
+        chunks.add(chunk.append('"').toString());
+        return chunks;
+    }
+
+    /**
+     * Appends the specified string to a Kotlin string literal, escaping characters as needed. Kotlin has no octal
+     * escapes, so control characters are written as Unicode escapes. A dollar sign is escaped so that it is not
+     * taken as the start of a string template.
+     *
+     * @param builder Kotlin string literal being built
+     * @param str String to append
+     */
+    private static void appendKotlinEscaped(final StringBuilder builder, final String str) {
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            switch (ch) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '$' -> builder.append("\\$");
+                default -> {
+                    if (ch < 0x20 || ch == 0x7F) {
+                        builder.append(String.format("\\u%04x", (int)ch));
+                    } else {
+                        builder.append(ch);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts the specified property key to the name of its constant.
+     * <pre>
+     * key1 -> KEY1
+     * abc.def-17 -> ABC_DEF_17
+     * </pre>
+     *
+     * @param propName Property key to convert
+     * @return Name of the constant for the key.
+     */
+    static String toConstantName(final String propName) {
+        return PROP_SEP_REGEX.matcher(propName).replaceAll("_").toUpperCase();
+    }
+
+    /**
+     * Extracts the name of the specified file without its extension.
+     * <pre>
+     * abc.txt -> abc
+     * /x/y/z/abc.txt -> abc
+     * abc. -> abc
+     * abc -> abc
+     * .abc -> .abc
+     * </pre>
+     *
+     * @param file File whose basename is desired
+     * @return Name of the file without its extension. The name of the file (i.e. {@link File#getName()}) is returned
+     *      if it did not have an extension.
+     */
+    @AccessForTesting
+    static String getBasename(final File file) {
+        final String filename = file.getName();
+        final int pos = filename.lastIndexOf('.');
+        return pos < 1 ? filename : filename.substring(0, pos);
+    }
+
+    /**
+     * Converts the specified string to CamelCase.
+     * <pre>
+     * h -> H
+     * hello -> Hello
+     * Hello -> Hello
+     * HELLO -> Hello
+     * hello_world -> HelloWorld
+     * Hello_World -> HelloWorld
+     * hello-world -> HelloWorld
+     * hello.world -> HelloWorld
+     * hello__world -> HelloWorld
+     * HELLO_WORLD -> HelloWorld
+     * HelloWorld -> HelloWorld
+     * "" -> ""
+     * - -> ""
+     * _ -> ""
+     * . -> ""
+     * </pre>
+     *
+     * @param str  String to convert to camel case. Underscores are considered word separators.
+     * @return Specified string converted to camel case.
+     */
+    @AccessForTesting
+    @SuppressWarnings("Convert2streamapi")
+    static String toCamelCase(final String str) {
+        if (str.isEmpty()) {
+            return str;
+        }
+
+        final String[] words = WORD_REGEX.split(str);
+        if (words.length == 1) {
+            final String word = words[0];
+            return Character.toUpperCase(word.charAt(0)) + word.substring(1).toLowerCase();
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (final String word : words) {
+            builder.append(Character.toUpperCase(word.charAt(0)))
+                   .append(word.substring(1).toLowerCase(Locale.ENGLISH));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Converts the specified string to all upper case. Changes in case are separated by underscores.
+     * <pre>
+     * "" -> ""
+     * h -> H
+     * hello -> HELLO
+     * Hello -> HELLO
+     * HELLO -> HELLO
+     * helloWorld -> HELLO_WORLD
+     * HelloWorld -> HELLO_WORLD
+     * hello_world -> HELLO_WORLD
+     * Hello_World -> HELLO_WORLD
+     * hello-world -> HELLO_WORLD
+     * hello.world -> HELLO_WORLD
+     * hello__world -> HELLO_WORLD
+     * HELLO_WORLD -> HELLO_WORLD
+     * - -> ""
+     * _ -> ""
+     * </pre>
+     *
+     * @param str String to convert to upper case.
+     * @return Specified string converted to upper case.
+     */
+    @AccessForTesting
+    static String toUpperCase(final String str) {
+        if (str.isEmpty()) {
+            return str;
+        }
+
+        final String[] words = WORD_REGEX.split(str);
+        if (words.length == 1) {
+            return words[0].toUpperCase(Locale.ENGLISH);
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (final String word : words) {
+            if (!builder.isEmpty()) {
+                builder.append('_');
+            }
+            builder.append(word.toUpperCase(Locale.ENGLISH));
+        }
+        return builder.toString();
+    }
+}
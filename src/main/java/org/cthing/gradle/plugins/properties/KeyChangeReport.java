@@ -0,0 +1,270 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * Reports the keys added to and removed from properties files since the previous generation. The sorted keys of
+ * each file are saved in a state file at the end of each generation, and compared with the keys of the next
+ * generation by a single merge pass over the two sorted lists. A file whose path changed but whose keys did not is
+ * reported as renamed rather than as the removal and addition of all its keys. The report does not depend on the
+ * Gradle API.
+ */
+final class KeyChangeReport {
+
+    private static final int VERSION = 1;
+
+    /**
+     * Marks a key added to a properties file.
+     */
+    static final String ADDED = "+";
+
+    /**
+     * Marks a key removed from a properties file.
+     */
+    static final String REMOVED = "-";
+
+    /**
+     * Marks a properties file whose path changed but whose keys did not.
+     */
+    static final String RENAMED = "R";
+
+    private final Path stateFile;
+    private final Map<String, List<String>> previous;
+    private final Map<String, List<String>> current = new TreeMap<>();
+
+    /**
+     * Change to a key or properties file.
+     *
+     * @param type Type of change ({@link #ADDED}, {@link #REMOVED} or {@link #RENAMED})
+     * @param path Path of the properties file. For a renamed file, the previous path.
+     * @param name Key that was added or removed. For a renamed file, the new path.
+     */
+    record Change(String type, String path, String name) {
+    }
+
+    /**
+     * Constructs a report that compares with the keys saved in the specified state file. If the file does not exist
+     * or cannot be read, all keys are reported as added.
+     *
+     * @param stateFile File containing the keys saved by the previous generation
+     */
+    KeyChangeReport(final Path stateFile) {
+        this.stateFile = stateFile;
+
+        final Map<String, List<String>> keys = new TreeMap<>();
+        if (Files.isRegularFile(stateFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+                if (in.readInt() == VERSION) {
+                    final int fileCount = in.readInt();
+                    for (int i = 0; i < fileCount; i++) {
+                        final String path = readString(in);
+                        final int keyCount = in.readInt();
+                        final List<String> fileKeys = new ArrayList<>(keyCount);
+                        for (int k = 0; k < keyCount; k++) {
+                            fileKeys.add(readString(in));
+                        }
+                        keys.put(path, fileKeys);
+                    }
+                }
+            } catch (final IOException | RuntimeException ex) {
+                // A damaged state file only costs reporting all keys as added.
+                keys.clear();
+            }
+        }
+        this.previous = keys;
+    }
+
+    /**
+     * Records the keys of a properties file in the current generation.
+     *
+     * @param path Path of the properties file relative to the root of the resources
+     * @param keys Sorted keys of the properties file
+     */
+    void add(final String path, final List<String> keys) {
+        this.current.put(path, keys);
+    }
+
+    /**
+     * Compares the keys of the current generation with those of the previous generation.
+     *
+     * @return Changes ordered by the path of the properties file and then by key.
+     */
+    List<Change> getChanges() {
+        final List<Change> changes = new ArrayList<>();
+
+        // Files whose path changed are matched by their keys. A file that is both removed and added with the same
+        // keys is reported as renamed.
+        final Map<List<String>, Deque<String>> addedFiles = new HashMap<>();
+        this.current.forEach((path, keys) -> {
+            if (!this.previous.containsKey(path)) {
+                addedFiles.computeIfAbsent(keys, k -> new ArrayDeque<>()).add(path);
+            }
+        });
+        final Set<String> renamedPaths = new HashSet<>();
+        this.previous.forEach((path, keys) -> {
+            final Deque<String> newPaths = this.current.containsKey(path) ? null : addedFiles.get(keys);
+            if (newPaths != null && !newPaths.isEmpty()) {
+                final String newPath = newPaths.poll();
+                changes.add(new Change(RENAMED, path, newPath));
+                renamedPaths.add(path);
+                renamedPaths.add(newPath);
+            }
+        });
+
+        final Set<String> paths = new HashSet<>(this.previous.keySet());
+        paths.addAll(this.current.keySet());
+        paths.removeAll(renamedPaths);
+        for (final String path : paths) {
+            diff(path, this.previous.getOrDefault(path, List.of()), this.current.getOrDefault(path, List.of()),
+                 changes);
+        }
+
+        changes.sort(Comparator.comparing(Change::path).thenComparing(Change::name));
+        return changes;
+    }
+
+    /**
+     * Writes the changes as tab separated lines consisting of the type of change, the path of the properties file
+     * and the key. For a renamed file, the key is replaced by the new path of the file. Backslash, tab, carriage
+     * return and line feed characters in the paths and keys are escaped using a backslash.
+     *
+     * @param writer Receives the report
+     * @param changes Changes to report
+     */
+    static void writeReport(final PrintWriter writer, final List<Change> changes) {
+        for (final Change change : changes) {
+            writer.print(change.type());
+            writer.print('\t');
+            writer.print(escape(change.path()));
+            writer.print('\t');
+            writer.print(escape(change.name()));
+            writer.print('\n');
+        }
+    }
+
+    /**
+     * Saves the keys of the current generation for comparison by the next generation.
+     *
+     * @throws IOException if there was a problem writing the state file
+     */
+    void save() throws IOException {
+        Files.createDirectories(this.stateFile.toAbsolutePath().getParent());
+        try (DataOutputStream out =
+                     new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.stateFile)))) {
+            out.writeInt(VERSION);
+            out.writeInt(this.current.size());
+            for (final Map.Entry<String, List<String>> entry : this.current.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (final String key : entry.getValue()) {
+                    writeString(out, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the sorted keys of a properties file in a single pass over both lists.
+     *
+     * @param path Path of the properties file
+     * @param previousKeys Sorted keys of the file in the previous generation
+     * @param currentKeys Sorted keys of the file in the current generation
+     * @param changes Receives the added and removed keys
+     */
+    private static void diff(final String path, final List<String> previousKeys, final List<String> currentKeys,
+                             final List<Change> changes) {
+        int p = 0;
+        int c = 0;
+        while (p < previousKeys.size() || c < currentKeys.size()) {
+            final int result;
+            if (p == previousKeys.size()) {
+                result = 1;
+            } else if (c == currentKeys.size()) {
+                result = -1;
+            } else {
+                result = previousKeys.get(p).compareTo(currentKeys.get(c));
+            }
+
+            if (result < 0) {
+                changes.add(new Change(REMOVED, path, previousKeys.get(p++)));
+            } else if (result > 0) {
+                changes.add(new Change(ADDED, path, currentKeys.get(c++)));
+            } else {
+                p++;
+                c++;
+            }
+        }
+    }
+
+    /**
+     * Escapes the characters in a path or key that would break the tab separated lines of the report.
+     *
+     * @param str String to escape
+     * @return Escaped string.
+     */
+    private static String escape(final String str) {
+        final StringBuilder buffer = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            switch (ch) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\r' -> buffer.append("\\r");
+                case '\n' -> buffer.append("\\n");
+                default -> buffer.append(ch);
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string. Unlike {@link DataInputStream#readUTF()}, the length of the string is
+     * not limited to 64 KiB.
+     *
+     * @param in Stream from which to read
+     * @return String read from the stream.
+     * @throws IOException if there was a problem reading the string
+     */
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string.
+     *
+     * @param out Stream to which to write
+     * @param str String to write
+     * @throws IOException if there was a problem writing the string
+     */
+    private static void writeString(final DataOutputStream out, final String str) throws IOException {
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
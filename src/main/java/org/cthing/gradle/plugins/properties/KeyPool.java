@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Shared class holding the key constants for a set of common properties files. A constants class whose properties
+ * file has the same name and keys as a file in the pool refers to the pool rather than repeating the key literals.
+ * The pool does not depend on the Gradle API.
+ */
+final class KeyPool {
+
+    /**
+     * Pool containing no properties files.
+     */
+    static final KeyPool NONE = new KeyPool("", List.of());
+
+    private final String classname;
+    private final List<PropertyKeys> properties;
+    private final Set<PropertyKeys> propertiesSet;
+
+    /**
+     * Constructs a key pool.
+     *
+     * @param classname Fully qualified name of the pool class (e.g. org.cthing.shared.KeyPool)
+     * @param properties Keys for each properties file in the pool
+     */
+    KeyPool(final String classname, final List<PropertyKeys> properties) {
+        this.classname = classname;
+        this.properties = List.copyOf(properties);
+        this.propertiesSet = Set.copyOf(properties);
+    }
+
+    /**
+     * Obtains the fully qualified name of the pool class.
+     *
+     * @return Fully qualified name of the pool class.
+     */
+    String getClassname() {
+        return this.classname;
+    }
+
+    /**
+     * Obtains the keys of the properties files in the pool.
+     *
+     * @return Keys for each properties file in the pool.
+     */
+    List<PropertyKeys> getProperties() {
+        return this.properties;
+    }
+
+    /**
+     * Indicates whether the pool contains a properties file with the same name and keys as the specified file.
+     *
+     * @param propertyKeys Keys of the properties file to look for
+     * @return {@code true} if the constants for the properties file can be obtained from the pool.
+     */
+    boolean contains(final PropertyKeys propertyKeys) {
+        return this.propertiesSet.contains(propertyKeys);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.cthing.annotations.AccessForTesting;
+
+
+/**
+ * Writes the GraalVM native image metadata for a generated constants class. The resource configuration registers
+ * the properties files so they are embedded in the image, and registers as resource bundles the properties files
+ * that have locale variants or that are explicitly named as bundles. The reflection configuration registers the
+ * constants class, its nested classes and any key pool classes they extend. The generator does not depend on the
+ * Gradle API.
+ */
+final class NativeImageMetadata {
+
+    static final String RESOURCE_CONFIG = "resource-config.json";
+    static final String REFLECT_CONFIG = "reflect-config.json";
+
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
+    /**
+     * Locale suffix of a resource bundle file name as formed by {@link java.util.ResourceBundle.Control}: a language,
+     * optionally followed by a script, a country or region, and a variant (e.g. _fr, _en_US, _zh_Hant_TW, _ja_JP_JP,
+     * _en__POSIX).
+     */
+    private static final Pattern LOCALE_SUFFIX =
+            Pattern.compile("_[a-z]{2,3}(?:_[A-Z][a-z]{3})?"
+                            + "(?:_(?:[A-Z]{2}|[0-9]{3})(?:_[A-Za-z0-9]+)?|__[A-Za-z0-9]+)?");
+
+    private final String classname;
+
+    /**
+     * Constructs a metadata generator for the specified constants class.
+     *
+     * @param classname Fully qualified name of the generated constants class
+     */
+    NativeImageMetadata(final String classname) {
+        this.classname = classname;
+    }
+
+    /**
+     * Obtains the path of the directory containing the metadata files relative to the root of the resources.
+     * Native image searches the subdirectories of {@code META-INF/native-image} for metadata, so each constants
+     * class is given its own directory to avoid collisions between jars.
+     *
+     * @return Path of the metadata directory (e.g. META-INF/native-image/property-key-constants/org.cthing.Keys).
+     */
+    String getDirectoryPath() {
+        return "META-INF/native-image/property-key-constants/" + this.classname;
+    }
+
+    /**
+     * Writes the resource configuration for the specified properties files.
+     *
+     * @param writer Writes the file
+     * @param resourcePaths Paths of the properties files relative to the root of the resources
+     *      (e.g. org/cthing/myapp/messages.properties)
+     * @param bundleNames Base names of resource bundles to register even if they have no locale variants
+     *      (e.g. org.cthing.myapp.messages)
+     */
+    void writeResourceConfig(final PrintWriter writer, final List<String> resourcePaths,
+                             final Set<String> bundleNames) {
+        final String includes = resourcePaths.stream()
+                                             .sorted()
+                                             .map(path -> "      { \"pattern\": \"" + toJson(Pattern.quote(path))
+                                                     + "\" }")
+                                             .collect(Collectors.joining(",\n"));
+        final String bundles = getBundleNames(resourcePaths, bundleNames).stream()
+                                                             .map(name -> "    { \"name\": \"" + toJson(name) + "\" }")
+                                                             .collect(Collectors.joining(",\n"));
+        writer.format("""
+                      {
+                        "resources": {
+                          "includes": [
+                      %s
+                          ]
+                        },
+                        "bundles": [
+                      %s
+                        ]
+                      }
+                      """, includes, bundles);
+    }
+
+    /**
+     * Writes the reflection configuration for the specified classes.
+     *
+     * @param writer Writes the file
+     * @param classnames Binary names of the generated classes and the key pool classes they extend
+     *      (e.g. org.cthing.myapp.Constants$Messages)
+     */
+    void writeReflectConfig(final PrintWriter writer, final List<String> classnames) {
+        final String entries = classnames.stream()
+                                         .map(name -> "  { \"name\": \"" + toJson(name)
+                                                 + "\", \"allDeclaredFields\": true }")
+                                         .collect(Collectors.joining(",\n"));
+        writer.format("""
+                      [
+                      %s
+                      ]
+                      """, entries);
+    }
+
+    /**
+     * Obtains the resource bundle base names for the specified properties files. Properties files that are not
+     * loaded as resource bundles need not be registered as bundles, so a file is only registered as a bundle if it
+     * has locale variants among the files or if its base name is explicitly specified. A file is a locale variant
+     * of another file if its name is the name of the other file followed by a valid locale suffix (e.g.
+     * messages_fr.properties and messages.properties). A locale variant belongs to the bundle of the other file and
+     * is not registered as a bundle of its own.
+     * <pre>
+     * org/cthing/messages.properties, org/cthing/messages_fr.properties -> org.cthing.messages
+     * messages.properties ->
+     * messages.properties, explicitly messages -> messages
+     * errors_de.properties ->
+     * errors_de.properties, explicitly errors -> errors
+     * app.properties, app_settings.properties ->
+     * </pre>
+     *
+     * @param resourcePaths Paths of the properties files relative to the root of the resources
+     * @param bundleNames Base names of resource bundles to register even if they have no locale variants
+     * @return Sorted bundle base names.
+     */
+    @AccessForTesting
+    static List<String> getBundleNames(final List<String> resourcePaths, final Set<String> bundleNames) {
+        final Set<String> candidates = resourcePaths.stream()
+                                                    .filter(path -> path.endsWith(PROPERTIES_EXTENSION))
+                                                    .map(path -> path.substring(0, path.length()
+                                                            - PROPERTIES_EXTENSION.length()).replace('/', '.'))
+                                                    .collect(Collectors.toCollection(TreeSet::new));
+        final Set<String> names = new TreeSet<>();
+        for (final String candidate : candidates) {
+            if (bundleNames.contains(candidate)) {
+                names.add(candidate);
+            }
+
+            // The shortest base name is the bundle of a variant (e.g. messages for messages_en_US rather than
+            // messages_en).
+            for (int i = candidate.indexOf('_', 1); i > 0; i = candidate.indexOf('_', i + 1)) {
+                final String baseName = candidate.substring(0, i);
+                if ((candidates.contains(baseName) || bundleNames.contains(baseName))
+                        && LOCALE_SUFFIX.matcher(candidate.substring(i)).matches()) {
+                    names.add(baseName);
+                    break;
+                }
+            }
+        }
+
+        // A variant registered as the bundle of a shorter base name is not a bundle of its own.
+        names.removeIf(name -> !bundleNames.contains(name) && isVariant(name, names));
+        return List.copyOf(names);
+    }
+
+    /**
+     * Indicates whether the specified name is a locale variant of one of the specified bundle base names.
+     *
+     * @param name Name to test
+     * @param baseNames Bundle base names
+     * @return {@code true} if the name is a base name followed by a locale suffix.
+     */
+    private static boolean isVariant(final String name, final Set<String> baseNames) {
+        return baseNames.stream()
+                        .anyMatch(baseName -> name.length() > baseName.length()
+                                && name.startsWith(baseName)
+                                && LOCALE_SUFFIX.matcher(name.substring(baseName.length())).matches());
+    }
+
+    /**
+     * Escapes the specified string for use within a JSON string literal.
+     *
+     * @param str String to escape
+     * @return Escaped string.
+     */
+    private static String toJson(final String str) {
+        final StringBuilder builder = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            final char ch = str.charAt(i);
+            switch (ch) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                default -> {
+                    if (ch < 0x20) {
+                        builder.append(String.format("\\u%04x", (int)ch));
+                    } else {
+                        builder.append(ch);
+                    }
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
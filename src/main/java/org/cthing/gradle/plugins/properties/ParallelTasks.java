@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Performs an action on each of a number of items concurrently using a bounded number of threads. The results are
+ * returned in the order of the items regardless of the order in which the actions complete. The constants generation
+ * task uses this to read properties files, where the latency of a slow file system is hidden by overlapping reads,
+ * and to write the source files of a sharded class. The class does not depend on the Gradle API.
+ */
+final class ParallelTasks {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    /**
+     * Action performed on a single item.
+     *
+     * @param <T> Type of the item
+     * @param <R> Type of the result of the action
+     */
+    @FunctionalInterface
+    interface Action<T, R> {
+
+        /**
+         * Performs the action on the specified item.
+         *
+         * @param item Item on which to perform the action
+         * @return Result of the action.
+         * @throws IOException if there was a problem performing the action
+         */
+        R run(T item) throws IOException;
+    }
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Performs the action on each of the specified items using at most the specified number of threads. If the
+     * concurrency is one, or there is only one item, the action is performed on the calling thread.
+     *
+     * @param <T> Type of the items
+     * @param <R> Type of the result of the action
+     * @param items Items on which to perform the action
+     * @param concurrency Maximum number of actions performed at the same time
+     * @param action Action to perform on each item. Must be safe for use by multiple threads.
+     * @return Result of the action for each item, in the order of the items.
+     * @throws IOException if there was a problem performing the action on any of the items. If more than one action
+     *      fails, the failure for the first item in order is thrown.
+     */
+    static <T, R> List<R> run(final List<T> items, final int concurrency, final Action<T, R> action)
+            throws IOException {
+        final List<R> results = new ArrayList<>(items.size());
+        final int threadCount = Math.min(concurrency, items.size());
+        if (threadCount <= 1) {
+            for (final T item : items) {
+                results.add(action.run(item));
+            }
+            return results;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, threadFactory());
+        try {
+            final List<Future<R>> futures = new ArrayList<>(items.size());
+            for (final T item : items) {
+                futures.add(executor.submit(() -> action.run(item)));
+            }
+            for (final Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException ioex = new InterruptedIOException("Interrupted waiting for parallel tasks");
+            ioex.initCause(ex);
+            throw ioex;
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException ioex) {
+                throw ioex;
+            }
+            if (cause instanceof RuntimeException rex) {
+                throw rex;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IOException(cause);
+        } finally {
+            // Actions still in progress after a failure are abandoned.
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Creates a factory for daemon threads named after this class, so that an abandoned action cannot keep the JVM
+     * alive and the threads are identifiable in a thread dump.
+     *
+     * @return Thread factory for the worker threads.
+     */
+    private static ThreadFactory threadFactory() {
+        final int poolNumber = POOL_NUMBER.incrementAndGet();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "property-key-constants-" + poolNumber + "-"
+                                                       + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
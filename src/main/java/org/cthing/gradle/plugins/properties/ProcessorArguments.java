@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.File;
+import java.util.List;
+
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.process.CommandLineArgumentProvider;
+
+
+/**
+ * Provides the {@link PropertyKeyConstantsProcessor} options to the Java compiler. The properties files read by the
+ * processor during the previous compilation are declared as compilation inputs so that a change to their keys
+ * recompiles the source set. The directory in which the processor lists those files is a compilation output, so
+ * that the lists are restored with the compiled classes from the build cache.
+ */
+final class ProcessorArguments implements CommandLineArgumentProvider {
+
+    private final Provider<Boolean> enabled;
+    private final File baseDir;
+    private final Provider<Long> memoryMapThreshold;
+    private final Provider<Directory> inputsDir;
+    private final FileCollection propertiesFiles;
+
+    /**
+     * Constructs the compiler argument provider.
+     *
+     * @param enabled Whether the annotation processor is used
+     * @param baseDir Directory against which relative properties file paths are resolved
+     * @param memoryMapThreshold Minimum file size in bytes for scanning the memory mapped file
+     * @param inputsDir Directory in which the annotation processor lists the properties files it reads. Only present
+     *      when the annotation processor is used.
+     * @param propertiesFiles Properties files read by the annotation processor during the previous compilation
+     */
+    ProcessorArguments(final Provider<Boolean> enabled, final File baseDir, final Provider<Long> memoryMapThreshold,
+                       final Provider<Directory> inputsDir, final FileCollection propertiesFiles) {
+        this.enabled = enabled;
+        this.baseDir = baseDir;
+        this.memoryMapThreshold = memoryMapThreshold;
+        this.inputsDir = inputsDir;
+        this.propertiesFiles = propertiesFiles;
+    }
+
+    @Input
+    public Provider<Boolean> getEnabled() {
+        return this.enabled;
+    }
+
+    @Internal
+    public File getBaseDir() {
+        return this.baseDir;
+    }
+
+    @Input
+    public Provider<Long> getMemoryMapThreshold() {
+        return this.memoryMapThreshold;
+    }
+
+    @OutputDirectory
+    @Optional
+    public Provider<Directory> getInputsDir() {
+        return this.inputsDir;
+    }
+
+    @InputFiles
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileCollection getPropertiesFiles() {
+        return this.propertiesFiles;
+    }
+
+    @Override
+    public Iterable<String> asArguments() {
+        if (!this.enabled.get()) {
+            return List.of();
+        }
+        return List.of("-A" + PropertyKeyConstantsProcessor.BASE_DIR_OPTION + "=" + this.baseDir.getAbsolutePath(),
+                       "-A" + PropertyKeyConstantsProcessor.MEMORY_MAP_THRESHOLD_OPTION + "="
+                               + this.memoryMapThreshold.get(),
+                       "-A" + PropertyKeyConstantsProcessor.INPUTS_DIR_OPTION + "="
+                               + this.inputsDir.get().getAsFile().getAbsolutePath());
+    }
+}
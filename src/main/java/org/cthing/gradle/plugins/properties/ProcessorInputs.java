@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+
+/**
+ * Obtains the properties files read by the {@link PropertyKeyConstantsProcessor} during the previous compilation of
+ * a source set. For each generated class, the processor lists the files it read in a file named after the class in
+ * the inputs directory. Declaring these files as compilation inputs recompiles the source set when one of them
+ * changes, without treating unrelated resources as inputs. A change to the files named by an annotation changes the
+ * annotated source, which recompiles it and updates the list. As a value source, the lists are read when the
+ * compilation is about to run, including in builds that reuse the configuration cache. Because the lists are
+ * written by the compilation, the compilation following the first one or following the addition of an annotation
+ * sees the listed files as new inputs and runs again once. The list of a class that is no longer generated remains
+ * until the build directory is cleaned, which can only cause unnecessary recompilation.
+ */
+public abstract class ProcessorInputs implements ValueSource<List<File>, ProcessorInputs.Parameters> {
+
+    /**
+     * Extension of the files listing the properties files read for a generated class.
+     */
+    static final String INPUTS_EXTENSION = ".inputs";
+
+    /**
+     * Parameters for obtaining the processor inputs.
+     */
+    public interface Parameters extends ValueSourceParameters {
+
+        /**
+         * Obtains the directory in which the processor lists the properties files it read.
+         *
+         * @return Processor inputs directory.
+         */
+        DirectoryProperty getInputsDirectory();
+
+        /**
+         * Obtains the directory against which relative properties file paths are resolved.
+         *
+         * @return Base directory of the properties files.
+         */
+        DirectoryProperty getBaseDirectory();
+    }
+
+    @Override
+    public List<File> obtain() {
+        final Path inputsDir = getParameters().getInputsDirectory().get().getAsFile().toPath();
+        final Path baseDir = getParameters().getBaseDirectory().get().getAsFile().toPath();
+        if (!Files.isDirectory(inputsDir)) {
+            return List.of();
+        }
+
+        final Set<File> files = new TreeSet<>();
+        try (Stream<Path> lists = Files.list(inputsDir)) {
+            for (final Path list : lists.filter(path -> path.toString().endsWith(INPUTS_EXTENSION)).toList()) {
+                Files.readAllLines(list, StandardCharsets.UTF_8)
+                     .stream()
+                     .filter(line -> !line.isEmpty())
+                     .forEach(line -> files.add(baseDir.resolve(line).normalize().toFile()));
+            }
+        } catch (final IOException ex) {
+            throw new GradleException("Could not read the annotation processor inputs in " + inputsDir, ex);
+        }
+        return List.copyOf(files);
+    }
+}
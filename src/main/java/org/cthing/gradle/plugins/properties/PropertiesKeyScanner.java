@@ -0,0 +1,285 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.cthing.annotations.AccessForTesting;
+
+
+/**
+ * Extracts the keys from a Java properties file by scanning the memory mapped bytes of the file. Unlike
+ * {@link java.util.Properties#load(java.io.InputStream)}, property values are skipped rather than decoded, so the
+ * heap used is bounded by the size of the keys rather than the size of the file. The file is interpreted using the
+ * same ISO-8859-1 encoding and syntax as {@code Properties.load}, including comments, line continuations and escape
+ * sequences, so the keys are identical to those obtained by loading the file. Files larger than the maximum size of
+ * a mapped buffer are mapped in a sequence of windows.
+ */
+final class PropertiesKeyScanner {
+
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+    private static final int EOF = -1;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final StringBuilder keyBuilder = new StringBuilder();
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private long pos;
+
+    private PropertiesKeyScanner(final FileChannel channel, final long windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Reads the keys from the specified properties file.
+     *
+     * @param propertiesFile Properties file whose keys are to be returned
+     * @return Sorted keys in the specified properties file.
+     * @throws IOException if there was a problem reading the file
+     * @throws IllegalArgumentException if the file contains a malformed Unicode escape sequence
+     */
+    static List<String> readKeys(final Path propertiesFile) throws IOException {
+        return readKeys(propertiesFile, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Reads the keys from the specified properties file mapping the file using the specified window size.
+     *
+     * @param propertiesFile Properties file whose keys are to be returned
+     * @param windowSize Maximum number of bytes mapped at one time
+     * @return Sorted keys in the specified properties file.
+     * @throws IOException if there was a problem reading the file
+     * @throws IllegalArgumentException if the file contains a malformed Unicode escape sequence
+     */
+    @AccessForTesting
+    static List<String> readKeys(final Path propertiesFile, final long windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(propertiesFile, StandardOpenOption.READ)) {
+            return new PropertiesKeyScanner(channel, windowSize).scan();
+        }
+    }
+
+    /**
+     * Scans the entire file for keys.
+     *
+     * @return Sorted keys in the file.
+     * @throws IOException if there was a problem reading the file
+     */
+    private List<String> scan() throws IOException {
+        final SortedSet<String> keys = new TreeSet<>();
+
+        int c = peek();
+        while (c != EOF) {
+            if (c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n') {
+                // Whitespace and blank lines preceding a logical line.
+                this.pos++;
+            } else if (c == '#' || c == '!') {
+                // Comments cannot be continued, so they end at the first line terminator.
+                skipToLineEnd();
+            } else if (c == '\\' && isLineTerminator(peekAt(this.pos + 1))) {
+                // A continuation before the key leaves the logical line empty, so the next line is treated as the
+                // start of a logical line (e.g. it may be a comment). If the file ends immediately after the line
+                // terminator, Properties.load treats the line as an empty key.
+                this.pos++;
+                if (peekAt(this.pos + 1) == EOF) {
+                    keys.add("");
+                    this.pos++;
+                } else {
+                    skipContinuation();
+                }
+            } else {
+                keys.add(scanKey());
+                skipValue();
+            }
+            c = peek();
+        }
+
+        return List.copyOf(keys);
+    }
+
+    /**
+     * Reads the key of a logical line. The position is left at the separator following the key or at the end of the
+     * logical line if the line only contains a key.
+     *
+     * @return Key with escape sequences converted.
+     * @throws IOException if there was a problem reading the file
+     */
+    private String scanKey() throws IOException {
+        this.keyBuilder.setLength(0);
+
+        int c = peek();
+        while (c != EOF && c != '=' && c != ':' && c != ' ' && c != '\t' && c != '\f' && c != '\r' && c != '\n') {
+            this.pos++;
+            if (c == '\\') {
+                final int next = peek();
+                if (next == EOF) {
+                    // A trailing backslash at the end of the file is dropped.
+                    break;
+                }
+                if (isLineTerminator(next)) {
+                    skipContinuation();
+                } else {
+                    this.pos++;
+                    this.keyBuilder.append(unescape(next));
+                }
+            } else {
+                this.keyBuilder.append((char)c);
+            }
+            c = peek();
+        }
+
+        return this.keyBuilder.toString();
+    }
+
+    /**
+     * Skips the separator and value of a logical line without decoding them. Escaped characters, including escaped
+     * line terminators, are skipped so that a value continued over several lines is skipped in its entirety.
+     * Unicode escapes are checked for validity so that the same files are rejected as by {@code Properties.load}.
+     *
+     * @throws IOException if there was a problem reading the file
+     */
+    private void skipValue() throws IOException {
+        int c = peek();
+        while (c != EOF && c != '\r' && c != '\n') {
+            this.pos++;
+            if (c == '\\') {
+                final int next = peek();
+                if (isLineTerminator(next)) {
+                    skipContinuation();
+                } else if (next == 'u') {
+                    // Malformed Unicode escapes are rejected in values as well as keys.
+                    this.pos++;
+                    unescape(next);
+                } else if (next != EOF) {
+                    this.pos++;
+                }
+            }
+            c = peek();
+        }
+    }
+
+    /**
+     * Skips an escaped line terminator and the whitespace at the start of the continuation line. The position must
+     * be at the line terminator.
+     *
+     * @throws IOException if there was a problem reading the file
+     */
+    private void skipContinuation() throws IOException {
+        if (peek() == '\r') {
+            this.pos++;
+            if (peek() == '\n') {
+                this.pos++;
+            }
+        } else {
+            this.pos++;
+        }
+
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\f') {
+            this.pos++;
+            c = peek();
+        }
+    }
+
+    /**
+     * Skips to the first line terminator or the end of the file.
+     *
+     * @throws IOException if there was a problem reading the file
+     */
+    private void skipToLineEnd() throws IOException {
+        int c = peek();
+        while (c != EOF && c != '\r' && c != '\n') {
+            this.pos++;
+            c = peek();
+        }
+    }
+
+    /**
+     * Converts the character following a backslash to the character it represents. For a Unicode escape, the
+     * position is advanced past the four hexadecimal digits.
+     *
+     * @param c Character following the backslash
+     * @return Character represented by the escape sequence.
+     * @throws IOException if there was a problem reading the file
+     */
+    private char unescape(final int c) throws IOException {
+        return switch (c) {
+            case 't' -> '\t';
+            case 'r' -> '\r';
+            case 'n' -> '\n';
+            case 'f' -> '\f';
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    // The digits are read from the logical line, so they may be split by a continuation.
+                    if (peek() == '\\' && isLineTerminator(peekAt(this.pos + 1))) {
+                        this.pos++;
+                        skipContinuation();
+                    }
+                    final int digit = Character.digit(peek(), 16);
+                    if (digit < 0) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    value = (value << 4) + digit;
+                    this.pos++;
+                }
+                yield (char)value;
+            }
+            default -> (char)c;
+        };
+    }
+
+    /**
+     * Indicates whether the specified character is a line terminator.
+     *
+     * @param c Character to test
+     * @return {@code true} if the character is a carriage return or line feed.
+     */
+    private static boolean isLineTerminator(final int c) {
+        return c == '\r' || c == '\n';
+    }
+
+    /**
+     * Obtains the byte at the current position.
+     *
+     * @return Unsigned byte at the current position or {@link #EOF} if the position is at the end of the file.
+     * @throws IOException if there was a problem mapping the file
+     */
+    private int peek() throws IOException {
+        return peekAt(this.pos);
+    }
+
+    /**
+     * Obtains the byte at the specified position, mapping the window containing the position if necessary.
+     *
+     * @param position Offset of the byte in the file
+     * @return Unsigned byte at the position or {@link #EOF} if the position is at or beyond the end of the file.
+     * @throws IOException if there was a problem mapping the file
+     */
+    private int peekAt(final long position) throws IOException {
+        if (position >= this.size) {
+            return EOF;
+        }
+        if (this.window == null || position < this.windowStart || position >= this.windowEnd) {
+            this.windowStart = position;
+            this.windowEnd = Math.min(this.size, position + this.windowSize);
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart,
+                                           this.windowEnd - this.windowStart);
+        }
+        return this.window.get((int)(position - this.windowStart)) & 0xFF;
+    }
+}
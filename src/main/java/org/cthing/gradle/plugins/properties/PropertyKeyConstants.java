@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Requests generation of a constants class by the {@link PropertyKeyConstantsProcessor} annotation processor. The
+ * class is generated during compilation of the annotated element rather than by a separate Gradle task. The
+ * processor is added to the compilation by enabling {@link PropertyKeyConstantsExtension#getAnnotationProcessing()}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ ElementType.TYPE, ElementType.PACKAGE })
+public @interface PropertyKeyConstants {
+
+    /**
+     * Fully qualified name for the generated class (e.g. org.cthing.myapp.PropertyConstants).
+     *
+     * @return Fully qualified class name.
+     */
+    String classname();
+
+    /**
+     * Properties files whose keys are generated as constants. Relative paths are resolved against the project
+     * directory.
+     *
+     * @return Paths of the properties files.
+     */
+    String[] files();
+
+    /**
+     * Access modifier for the generated constants.
+     *
+     * @return Access modifier for the generated constants.
+     */
+    SourceAccess sourceAccess() default SourceAccess.PUBLIC;
+
+    /**
+     * Layout for the generated source code.
+     *
+     * @return Layout for the generated source code.
+     */
+    SourceLayout sourceLayout() default SourceLayout.NESTED_CLASSES;
+
+    /**
+     * Whether to generate the {@code keys()} and {@code contains(String)} methods and the key index resource.
+     *
+     * @return Whether key enumeration metadata is generated.
+     */
+    boolean keyIndex() default false;
+}
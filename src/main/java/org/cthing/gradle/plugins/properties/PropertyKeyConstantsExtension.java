@@ -5,9 +5,15 @@
 
 package org.cthing.gradle.plugins.properties;
 
+import java.util.Set;
+
+import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.api.Project;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.SourceSet;
 
 
 /**
@@ -17,11 +23,50 @@ public class PropertyKeyConstantsExtension {
 
     private final Property<SourceAccess> sourceAccess;
     private final Property<SourceLayout> sourceLayout;
+    private final Property<SourceLanguage> sourceLanguage;
+    private final Property<Integer> shardCount;
+    private final NamedDomainObjectContainer<ConstantsClass> classes;
+    private final Property<Long> memoryMapThreshold;
+    private final Property<Integer> readConcurrency;
+    private final Property<Boolean> annotationProcessing;
+    private final Property<Boolean> nativeImageMetadata;
+    private final SetProperty<String> nativeImageBundles;
+    private final Property<Boolean> keyIndex;
+    private final Property<String> keyPoolClassname;
+    private final ConfigurableFileCollection keyPoolSource;
+    private final Property<Boolean> generateKeyPool;
+    private final Property<Boolean> keyChangeReport;
+    private final Property<Boolean> skipEmptySourceSets;
+    private final Property<Boolean> discoverPropertiesFiles;
+    private final SetProperty<String> discoveryIncludes;
+    private final SetProperty<String> discoveryExcludes;
 
     public PropertyKeyConstantsExtension(final Project project) {
         final ObjectFactory objects = project.getObjects();
         this.sourceAccess = objects.property(SourceAccess.class).convention(SourceAccess.PUBLIC);
         this.sourceLayout = objects.property(SourceLayout.class).convention(SourceLayout.NESTED_CLASSES);
+        this.sourceLanguage = objects.property(SourceLanguage.class).convention(SourceLanguage.JAVA);
+        this.shardCount = objects.property(Integer.class).convention(1);
+        this.classes = objects.domainObjectContainer(ConstantsClass.class);
+        this.classes.configureEach(cls -> {
+            cls.getSourceAccess().convention(this.sourceAccess);
+            cls.getSourceLayout().convention(this.sourceLayout);
+            cls.getSourceSetName().convention(SourceSet.MAIN_SOURCE_SET_NAME);
+        });
+        this.memoryMapThreshold = objects.property(Long.class).convention(PropertyKeys.DEFAULT_MEMORY_MAP_THRESHOLD);
+        this.readConcurrency = objects.property(Integer.class).convention(PropertyKeys.DEFAULT_READ_CONCURRENCY);
+        this.annotationProcessing = objects.property(Boolean.class).convention(false);
+        this.nativeImageMetadata = objects.property(Boolean.class).convention(false);
+        this.nativeImageBundles = objects.setProperty(String.class).convention(Set.of());
+        this.keyIndex = objects.property(Boolean.class).convention(false);
+        this.keyPoolClassname = objects.property(String.class);
+        this.keyPoolSource = objects.fileCollection();
+        this.generateKeyPool = objects.property(Boolean.class).convention(false);
+        this.keyChangeReport = objects.property(Boolean.class).convention(false);
+        this.skipEmptySourceSets = objects.property(Boolean.class).convention(false);
+        this.discoverPropertiesFiles = objects.property(Boolean.class).convention(false);
+        this.discoveryIncludes = objects.setProperty(String.class).convention(Set.of("**/*.properties"));
+        this.discoveryExcludes = objects.setProperty(String.class).convention(Set.of());
     }
 
     /**
@@ -41,4 +86,204 @@ public class PropertyKeyConstantsExtension {
     public Property<SourceLayout> getSourceLayout() {
         return this.sourceLayout;
     }
+
+    /**
+     * Obtains the language of the generated source files. The default is {@link SourceLanguage#JAVA}. When
+     * {@link SourceLanguage#KOTLIN} is specified, the generated files are added to the Kotlin source directories of
+     * the source set rather than the Java source directories. The Kotlin source directories are only available when
+     * the Kotlin JVM plugin is applied to the project.
+     *
+     * @return Language of the generated source files.
+     */
+    public Property<SourceLanguage> getSourceLanguage() {
+        return this.sourceLanguage;
+    }
+
+    /**
+     * Obtains the number of source files into which each constants class is split. The default is 1, which generates
+     * a single source file for each class. When greater than one, the properties files of each class are assigned to
+     * shards by a hash of their file names, and the constants for each shard are generated as a separate class named
+     * by appending {@code Shard} and the shard number to the class name (e.g. {@code ConstantsShard3}). The shards
+     * are written in parallel, and the compiler and IDE process a number of moderately sized files rather than one
+     * very large file. Sharding is an incompatible change for code using the constants. The class itself is no longer
+     * generated, and changing the shard count moves most files to a different shard.
+     *
+     * @return Number of source files for each constants class.
+     */
+    public Property<Integer> getShardCount() {
+        return this.shardCount;
+    }
+
+    /**
+     * Obtains the container of additional constants classes. Each class is generated by the constants generation
+     * task for its source set, along with the class specified on the task itself. A properties file used by more
+     * than one class is read only once.
+     *
+     * @return Additional constants classes to generate.
+     */
+    public NamedDomainObjectContainer<ConstantsClass> getClasses() {
+        return this.classes;
+    }
+
+    /**
+     * Obtains the size in bytes at or above which the keys of a properties file are extracted by scanning the memory
+     * mapped file rather than by loading the file into a {@link java.util.Properties} object. Scanning does not
+     * decode the property values, so the heap used is bounded by the size of the keys rather than the size of the
+     * file. The default is 64 MiB.
+     *
+     * @return Minimum properties file size for memory mapped key extraction.
+     */
+    public Property<Long> getMemoryMapThreshold() {
+        return this.memoryMapThreshold;
+    }
+
+    /**
+     * Obtains the maximum number of properties files read at the same time by each constants generation task. When
+     * the properties files are on a slow file system, such as a network mount, reading files concurrently hides the
+     * latency of opening and reading each file. Setting the concurrency to 1 reads the files one at a time. The
+     * default is 8.
+     *
+     * @return Maximum number of properties files read concurrently.
+     */
+    public Property<Integer> getReadConcurrency() {
+        return this.readConcurrency;
+    }
+
+    /**
+     * Indicates whether the {@link PropertyKeyConstantsProcessor} annotation processor is added to the compilation
+     * of each source set. When enabled, constants classes requested using the {@link PropertyKeyConstants}
+     * annotation are generated by the Java compiler rather than by a separate task. The default is {@code false}.
+     *
+     * @return Whether constants classes are generated by the annotation processor.
+     */
+    public Property<Boolean> getAnnotationProcessing() {
+        return this.annotationProcessing;
+    }
+
+    /**
+     * Indicates whether GraalVM native image resource and reflection metadata is generated for the constants
+     * classes. The metadata is added to the resources of the source set so that the properties files are embedded
+     * in the image and the resource bundles are resolved at image build time. The default is {@code false}.
+     *
+     * @return Whether native image metadata is generated.
+     */
+    public Property<Boolean> getNativeImageMetadata() {
+        return this.nativeImageMetadata;
+    }
+
+    /**
+     * Obtains the base names of the properties files to register as resource bundles in the native image metadata
+     * even though they have no locale variants (e.g. org.cthing.myapp.messages). A properties file with locale
+     * variants is always registered as a resource bundle. The default is no additional bundles.
+     *
+     * @return Base names of additional resource bundles.
+     */
+    public SetProperty<String> getNativeImageBundles() {
+        return this.nativeImageBundles;
+    }
+
+    /**
+     * Indicates whether source sets whose generation task declares no class are left untouched. When enabled, the
+     * generated source and resources directories are only added to a source set whose generation task has a
+     * classname, additional classes or generates the key pool, and they are added as outputs of the task rather
+     * than through explicit task dependencies. This is decided without searching the properties files. Any other
+     * source set then has no generated directories to scan and its compilation does not depend on the generation
+     * task. The default is {@code false}.
+     *
+     * @return Whether source sets without classes to generate are skipped.
+     */
+    public Property<Boolean> getSkipEmptySourceSets() {
+        return this.skipEmptySourceSets;
+    }
+
+    /**
+     * Indicates whether properties files are discovered in the resource directories of each source set. The
+     * discovered files are added to the source of the source set's generation task when a classname is specified
+     * for that task. Source sets whose generation task has no classname, such as the test source set in most
+     * projects, are not searched. The resources are searched when the task runs rather than during configuration.
+     * The default is {@code false}.
+     *
+     * @return Whether properties files are discovered.
+     */
+    public Property<Boolean> getDiscoverPropertiesFiles() {
+        return this.discoverPropertiesFiles;
+    }
+
+    /**
+     * Obtains the Ant style patterns, relative to the resource directories, of the files to discover. The default
+     * is {@code **}{@code /*.properties}.
+     *
+     * @return Include patterns for discovery.
+     */
+    public SetProperty<String> getDiscoveryIncludes() {
+        return this.discoveryIncludes;
+    }
+
+    /**
+     * Obtains the Ant style patterns, relative to the resource directories, of the files to exclude from discovery.
+     * The default is no exclusions.
+     *
+     * @return Exclude patterns for discovery.
+     */
+    public SetProperty<String> getDiscoveryExcludes() {
+        return this.discoveryExcludes;
+    }
+
+    /**
+     * Indicates whether key enumeration metadata is generated for the constants classes. When enabled, the keys of
+     * each properties file can be enumerated and searched without reflection using the generated {@code keys()}
+     * and {@code contains(String)} methods, and a key index resource is generated. The default is {@code false}.
+     *
+     * @return Whether key enumeration metadata is generated.
+     */
+    public Property<Boolean> getKeyIndex() {
+        return this.keyIndex;
+    }
+
+    /**
+     * Obtains the fully qualified name of the key pool class (e.g. {@code org.cthing.shared.KeyPool}). The key pool
+     * holds the constants for a set of common properties files shared by many projects, so that the key literals
+     * are compiled once rather than into the constants classes of each project. There is no default.
+     *
+     * @return Fully qualified name of the key pool class.
+     */
+    public Property<String> getKeyPoolClassname() {
+        return this.keyPoolClassname;
+    }
+
+    /**
+     * Obtains the common properties files whose constants are held by the key pool class. A nested constants class
+     * generated for a properties file with the same name and keys as one of these files extends the corresponding
+     * class in the key pool, so its constants are still referenced through the constants class but their literals
+     * are not repeated. Only Java constants classes with the {@link SourceLayout#NESTED_CLASSES} layout use the
+     * key pool. There is no default.
+     *
+     * @return Common properties files.
+     */
+    public ConfigurableFileCollection getKeyPoolSource() {
+        return this.keyPoolSource;
+    }
+
+    /**
+     * Indicates whether the key pool class is generated for the main source set of the project. The key pool is
+     * generated by a single shared project, and the projects using it depend on that project. The pool has the
+     * access of {@link #getSourceAccess()}, which must be {@link SourceAccess#PUBLIC} for the pool to be used by
+     * public constants classes or from other packages. The default is {@code false}.
+     *
+     * @return Whether the key pool class is generated.
+     */
+    public Property<Boolean> getGenerateKeyPool() {
+        return this.generateKeyPool;
+    }
+
+    /**
+     * Indicates whether a report of the keys added to and removed from the properties files since the previous
+     * generation is written for each source set. The report is written to
+     * {@code build/reports/property-key-constants/<source set>-key-changes.tsv}. The default is {@code false}.
+     *
+     * @return Whether the key change report is written.
+     */
+    public Property<Boolean> getKeyChangeReport() {
+        return this.keyChangeReport;
+    }
 }
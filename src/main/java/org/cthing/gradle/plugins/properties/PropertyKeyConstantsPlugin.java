@@ -5,13 +5,39 @@
 
 package org.cthing.gradle.plugins.properties;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.SourceDirectorySet;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.language.jvm.tasks.ProcessResources;
 
 
 /**
@@ -21,6 +47,12 @@ public class PropertyKeyConstantsPlugin implements Plugin<Project> {
 
     public static final String EXTENSION_NAME = "propertyKeyConstants";
 
+    private static final String KOTLIN_PLUGIN_ID = "org.jetbrains.kotlin.jvm";
+    private static final String KOTLIN_SOURCES_NAME = "kotlin";
+    private static final String PROCESSOR_SERVICE = "META-INF/services/javax.annotation.processing.Processor";
+    private static final String ANNOTATIONS_TASK_NAME = "propertyKeyConstantsAnnotations";
+    private static final String PACKAGE_PATH = "org/cthing/gradle/plugins/properties/";
+
     /**
      * Applies the plugin to the specified project.
      *
@@ -33,6 +65,14 @@ public class PropertyKeyConstantsPlugin implements Plugin<Project> {
         final PropertyKeyConstantsExtension extension =
                 project.getExtensions().create(EXTENSION_NAME, PropertyKeyConstantsExtension.class, project);
 
+        // Keys and generated source are cached for the generation tasks of the build.
+        final Provider<PropertyKeysService> keysService =
+                project.getGradle().getSharedServices().registerIfAbsent(PropertyKeysService.SERVICE_NAME,
+                                                                         PropertyKeysService.class, spec -> { });
+
+        // The annotation processor is only given the annotation at compile time, rather than the entire plugin.
+        final TaskProvider<Jar> annotationsTask = registerAnnotationsTask(project);
+
         // For each Java source set, create a task for generating constants from property file keys.
         project.getExtensions().getByType(JavaPluginExtension.class).getSourceSets().all(sourceSet -> {
             // Use the Gradle naming scheme for the task name.
@@ -43,6 +83,20 @@ public class PropertyKeyConstantsPlugin implements Plugin<Project> {
                     project.getLayout()
                            .getBuildDirectory()
                            .dir("generated-src/property-key-constants/" + sourceSet.getName());
+            final Provider<Directory> taskResourcesOutputDirectory =
+                    project.getLayout()
+                           .getBuildDirectory()
+                           .dir("generated-resources/property-key-constants/" + sourceSet.getName());
+
+            // The key change report compares with the keys saved by the previous run of the task.
+            final Provider<RegularFile> keyChangeReportFile =
+                    project.getLayout()
+                           .getBuildDirectory()
+                           .file("reports/property-key-constants/" + sourceSet.getName() + "-key-changes.tsv");
+            final Provider<RegularFile> keyStateFile =
+                    project.getLayout()
+                           .getBuildDirectory()
+                           .file("tmp/property-key-constants/" + sourceSet.getName() + "-keys.state");
 
             // Create the constants generation task.
             final TaskProvider<PropertyKeyConstantsTask> constantsTask =
@@ -51,17 +105,270 @@ public class PropertyKeyConstantsPlugin implements Plugin<Project> {
                                                           sourceSet.getName()));
                         task.getSourceAccess().convention(extension.getSourceAccess());
                         task.getSourceLayout().convention(extension.getSourceLayout());
+                        task.getSourceLanguage().convention(extension.getSourceLanguage());
+                        task.getShardCount().convention(extension.getShardCount());
                         task.getOutputDirectory().convention(taskOutputDirectory);
+                        task.getResourcesOutputDirectory().convention(taskResourcesOutputDirectory);
+                        task.getNativeImageMetadata().convention(extension.getNativeImageMetadata());
+                        task.getNativeImageBundles().convention(extension.getNativeImageBundles());
+                        task.getKeyIndex().convention(extension.getKeyIndex());
+                        task.getMemoryMapThreshold().convention(extension.getMemoryMapThreshold());
+                        task.getReadConcurrency().convention(extension.getReadConcurrency());
+                        task.getKeyPoolClassname().convention(extension.getKeyPoolClassname());
+                        task.getKeyPoolSource().from(extension.getKeyPoolSource());
+                        task.getGenerateKeyPool().convention(extension.getGenerateKeyPool().map(
+                                generate -> generate && SourceSet.MAIN_SOURCE_SET_NAME.equals(sourceSet.getName())));
+                        task.getKeyChangeReportFile().convention(extension.getKeyChangeReport().flatMap(
+                                report -> report ? keyChangeReportFile : project.getObjects().fileProperty()));
+                        task.getKeyStateFile().convention(keyStateFile);
+                        task.getKeysService().set(keysService);
+                        task.usesService(keysService);
+                        task.getResourceDirectories().from(sourceSet.getResources().getSourceDirectories());
+                        task.getDiscoveredSource().from(discoverPropertiesFiles(project, extension, sourceSet,
+                                                                                task.getClassname()));
+                        task.getClasses().convention(project.provider(
+                                () -> extension.getClasses()
+                                               .stream()
+                                               .filter(cls -> sourceSet.getName().equals(cls.getSourceSetName().get()))
+                                               .toList()));
                     });
 
-            // Add the generated constants source file to the source set
-            sourceSet.getJava().srcDir(taskOutputDirectory);
+            // Add the generated constants source file to the source set. When empty source sets are skipped, the
+            // directory is only added for a task that declares a class to generate. The directory is backed by the
+            // task output, which carries the dependency of the compilation on the task. Generated Kotlin source files
+            // are only added to the Kotlin source directories, so that a Kotlin only source set has no Java sources to
+            // compile.
+            sourceSet.getJava().srcDir(generatedSources(project, extension, constantsTask, SourceLanguage.JAVA));
+            project.getPluginManager().withPlugin(KOTLIN_PLUGIN_ID, kotlinPlugin -> {
+                final SourceDirectorySet kotlinSources =
+                        (SourceDirectorySet)sourceSet.getExtensions().getByName(KOTLIN_SOURCES_NAME);
+                kotlinSources.srcDir(generatedSources(project, extension, constantsTask, SourceLanguage.KOTLIN));
+            });
 
             // Generate the constants source file before trying to compile it.
             project.getTasks()
                    .named(sourceSet.getCompileJavaTaskName())
-                   .configure(compileTask -> compileTask.dependsOn(constantsTask));
+                   .configure(compileTask -> compileTask.dependsOn(eagerDependency(extension, constantsTask)));
+
+            // Add the generated resources (e.g. native image metadata, key index) to the processed resources. They
+            // are not added to the source set resource directories, which are searched when discovering properties
+            // files. The resources are only added, and resource processing only depends on the task, when the task
+            // is configured to generate resources. The dependency is carried by the task output.
+            final Provider<List<Directory>> generatedResources = constantsTask.flatMap(task -> {
+                final boolean resources = !extension.getAnnotationProcessing().get()
+                        && (task.getNativeImageMetadata().get() || task.getKeyIndex().get())
+                        && (!extension.getSkipEmptySourceSets().get() || task.declaresClasses());
+                return resources
+                       ? task.getResourcesOutputDirectory().map(List::of)
+                       : project.provider(List::<Directory>of);
+            });
+            project.getTasks()
+                   .named(sourceSet.getProcessResourcesTaskName(), ProcessResources.class)
+                   .configure(resourcesTask -> resourcesTask.from(generatedResources));
+
+            // When requested, generate constants using the annotation processor during compilation instead of the
+            // generation task.
+            configureAnnotationProcessing(project, extension, sourceSet, annotationsTask);
+        });
+    }
+
+    /**
+     * Creates a provider for the directory containing the generated source files of the specified language. The
+     * directory is provided when the generation task generates source files in that language, unless the annotation
+     * processor is used or empty source sets are skipped and the task declares no class to generate. Whether a task
+     * declares a class is decided from its configuration rather than its properties files, so that resolving the
+     * provider does not walk the source trees. A task that declares a class but has no properties files is skipped
+     * when it runs. Because generated Kotlin source files can only be compiled by the Kotlin plugin, generating
+     * Kotlin source without that plugin fails rather than silently compiling nothing.
+     *
+     * @param project Project to which the plugin is applied
+     * @param extension Plugin configuration
+     * @param constantsTask Constants generation task of a source set
+     * @param language Language of the source directories to which the directory is added
+     * @return Provider of the generated source directory, or of no directories.
+     */
+    private static Provider<List<Directory>> generatedSources(
+            final Project project, final PropertyKeyConstantsExtension extension,
+            final TaskProvider<PropertyKeyConstantsTask> constantsTask, final SourceLanguage language) {
+        return constantsTask.flatMap(task -> {
+            final boolean sources = !extension.getAnnotationProcessing().get()
+                    && (!extension.getSkipEmptySourceSets().get() || task.declaresClasses());
+            final SourceLanguage taskLanguage = task.getSourceLanguage().get();
+            if (sources && taskLanguage == SourceLanguage.KOTLIN
+                    && !project.getPluginManager().hasPlugin(KOTLIN_PLUGIN_ID)) {
+                throw new GradleException(String.format("Task %s generates Kotlin source, which requires the %s "
+                                                        + "plugin to be applied", task.getPath(), KOTLIN_PLUGIN_ID));
+            }
+            final ListProperty<Directory> directories = project.getObjects().listProperty(Directory.class);
+            if (sources && taskLanguage == language) {
+                directories.add(task.getOutputDirectory());
+            }
+            return directories;
+        });
+    }
+
+    /**
+     * Creates a provider for the properties files discovered in the resource directories of the specified source
+     * set. The files are only discovered when discovery is enabled on the extension and a classname is specified for
+     * the generation task of the source set, so that a source set with resources but no constants class, such as the
+     * test source set, is not given properties files it cannot generate. The discovered files are the source set
+     * resources filtered by the discovery patterns. Because this is a Gradle file tree, the files are matched
+     * exactly as the resources are processed, including the patterns and filter of the resources and Gradle's
+     * default excludes. The tree is only walked when the task's inputs are fingerprinted or the task runs, so
+     * discovery adds no work to configuration, and builds reusing the configuration cache see added and removed
+     * files. The task orders the discovered files by resource path.
+     *
+     * @param project Project to which the plugin is applied
+     * @param extension Plugin configuration
+     * @param sourceSet Source set whose resources are searched
+     * @param classname Classname of the generation task of the source set
+     * @return Provider of the discovered properties files. No files are provided when discovery is disabled or no
+     *      classname is specified.
+     */
+    private static Provider<FileCollection> discoverPropertiesFiles(
+            final Project project, final PropertyKeyConstantsExtension extension, final SourceSet sourceSet,
+            final Provider<String> classname) {
+        final SourceDirectorySet resources = sourceSet.getResources();
+        return project.provider(() -> {
+            if (!extension.getDiscoverPropertiesFiles().get() || !classname.isPresent()) {
+                return project.files();
+            }
+            return resources.matching(patterns -> patterns.include(extension.getDiscoveryIncludes().get())
+                                                          .exclude(extension.getDiscoveryExcludes().get()));
+        });
+    }
+
+    /**
+     * Creates a compilation dependency on the constants generation task that is only present when empty source sets
+     * are not skipped and the annotation processor is not used. When empty source sets are skipped, the dependency is
+     * carried by the generated directories instead.
+     *
+     * @param extension Plugin configuration
+     * @param constantsTask Constants generation task
+     * @return Dependency on the constants generation task, evaluated when the task graph is built.
+     */
+    private static Callable<Object> eagerDependency(final PropertyKeyConstantsExtension extension,
+                                                    final TaskProvider<PropertyKeyConstantsTask> constantsTask) {
+        return () -> extension.getSkipEmptySourceSets().get() || extension.getAnnotationProcessing().get()
+                     ? List.of()
+                     : constantsTask;
+    }
 
+    /**
+     * Registers the task that packages the {@link PropertyKeyConstants} annotation and the types it references for
+     * the compile only classpath. Unlike the plugin jar, the annotations jar does not bring the plugin and its use of
+     * the Gradle API onto the compile classpath of the project.
+     *
+     * @param project Project to which the plugin is applied
+     * @return Annotations jar task.
+     */
+    private static TaskProvider<Jar> registerAnnotationsTask(final Project project) {
+        return project.getTasks().register(ANNOTATIONS_TASK_NAME, Jar.class, task -> {
+            task.setDescription("Packages the property key constants annotation for compilation");
+            task.from((Callable<Object>)() -> getProcessorClasspath().stream()
+                                                                      .map(location -> location.isDirectory()
+                                                                                       ? location
+                                                                                       : project.zipTree(location))
+                                                                      .toList());
+            task.include(PACKAGE_PATH + PropertyKeyConstants.class.getSimpleName() + ".class",
+                         PACKAGE_PATH + SourceAccess.class.getSimpleName() + "*.class",
+                         PACKAGE_PATH + SourceLayout.class.getSimpleName() + "*.class");
+            task.setDuplicatesStrategy(DuplicatesStrategy.EXCLUDE);
+            task.getDestinationDirectory().set(project.getLayout()
+                                                      .getBuildDirectory()
+                                                      .dir("tmp/property-key-constants"));
+            task.getArchiveFileName().set("annotations.jar");
         });
     }
+
+    /**
+     * Adds the {@link PropertyKeyConstantsProcessor} to the compilation of the specified source set when annotation
+     * processing is enabled on the extension. The processor is added to the annotation processor path, and the jar
+     * containing the {@link PropertyKeyConstants} annotation is added to the compile only classpath. The properties
+     * files read by the processor during the previous compilation are compilation inputs.
+     *
+     * @param project Project to which the plugin is applied
+     * @param extension Plugin configuration
+     * @param sourceSet Source set whose compilation may use the processor
+     * @param annotationsTask Task packaging the annotation
+     */
+    private static void configureAnnotationProcessing(final Project project,
+                                                      final PropertyKeyConstantsExtension extension,
+                                                      final SourceSet sourceSet,
+                                                      final TaskProvider<Jar> annotationsTask) {
+        final ConfigurationContainer configurations = project.getConfigurations();
+        final Callable<Object> processorClasspath = PropertyKeyConstantsPlugin::getProcessorClasspath;
+        configurations.named(sourceSet.getAnnotationProcessorConfigurationName()).configure(
+                configuration -> configuration.withDependencies(deps -> {
+                    if (extension.getAnnotationProcessing().get()) {
+                        deps.add(project.getDependencies().create(project.files(processorClasspath)));
+                    }
+                }));
+        configurations.named(sourceSet.getCompileOnlyConfigurationName()).configure(
+                configuration -> configuration.withDependencies(deps -> {
+                    if (extension.getAnnotationProcessing().get()) {
+                        deps.add(project.getDependencies().create(project.files(annotationsTask)));
+                    }
+                }));
+
+        final Provider<Directory> inputsDir =
+                project.getLayout()
+                       .getBuildDirectory()
+                       .dir("tmp/property-key-constants/" + sourceSet.getName() + "-processor-inputs");
+        final Provider<List<File>> processorInputs =
+                project.getProviders().of(ProcessorInputs.class, spec -> {
+                    spec.getParameters().getInputsDirectory().set(inputsDir);
+                    spec.getParameters().getBaseDirectory().set(project.getLayout().getProjectDirectory());
+                });
+        final Provider<Boolean> enabled = extension.getAnnotationProcessing();
+        final FileCollection propertiesFiles = project.files(enabled.flatMap(
+                processing -> processing ? processorInputs : project.provider(List::<File>of)));
+        final Provider<Directory> outputInputsDir = enabled.flatMap(
+                processing -> processing ? inputsDir : project.getObjects().directoryProperty());
+        final ProcessorArguments arguments = new ProcessorArguments(enabled, project.getProjectDir(),
+                                                                    extension.getMemoryMapThreshold(),
+                                                                    outputInputsDir, propertiesFiles);
+        project.getTasks()
+               .named(sourceSet.getCompileJavaTaskName(), JavaCompile.class)
+               .configure(compileTask -> compileTask.getOptions().getCompilerArgumentProviders().add(arguments));
+    }
+
+    /**
+     * Locates the classpath roots containing the annotation processor and its service registration. When the plugin
+     * is packaged, this is the plugin jar. During development, classes and resources may be in separate directories.
+     *
+     * @return Classpath for the annotation processor.
+     */
+    private static Set<File> getProcessorClasspath() {
+        final Set<File> classpath = new LinkedHashSet<>();
+        try {
+            classpath.add(new File(PropertyKeyConstantsProcessor.class.getProtectionDomain()
+                                                                       .getCodeSource()
+                                                                       .getLocation()
+                                                                       .toURI()));
+
+            final ClassLoader classLoader = PropertyKeyConstantsProcessor.class.getClassLoader();
+            final Enumeration<URL> resources = classLoader.getResources(PROCESSOR_SERVICE);
+            while (resources.hasMoreElements()) {
+                final URL resource = resources.nextElement();
+                final String content;
+                try (InputStream in = resource.openStream()) {
+                    content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                if (content.contains(PropertyKeyConstantsProcessor.class.getName())) {
+                    final URLConnection connection = resource.openConnection();
+                    if (connection instanceof JarURLConnection jarConnection) {
+                        classpath.add(new File(jarConnection.getJarFileURL().toURI()));
+                    } else {
+                        final String url = resource.toString();
+                        final String root = url.substring(0, url.length() - PROCESSOR_SERVICE.length());
+                        classpath.add(new File(URI.create(root)));
+                    }
+                }
+            }
+        } catch (final IOException | URISyntaxException ex) {
+            throw new GradleException("Could not locate the property key constants annotation processor", ex);
+        }
+        return classpath;
+    }
 }
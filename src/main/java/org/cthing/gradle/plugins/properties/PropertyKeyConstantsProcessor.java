@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+
+/**
+ * Annotation processor that generates constants classes requested by {@link PropertyKeyConstants} annotations.
+ * The same generator is used as the {@link PropertyKeyConstantsTask}, so the generated classes are identical.
+ * The processor is isolating for Gradle incremental compilation. The following processor options are supported:
+ * <ul>
+ *   <li>{@code propertyKeyConstants.baseDir} - Directory against which relative properties file paths are
+ *       resolved. The default is the current directory.</li>
+ *   <li>{@code propertyKeyConstants.memoryMapThreshold} - Size in bytes at or above which a properties file is
+ *       scanned for its keys through a memory mapped buffer.</li>
+ *   <li>{@code propertyKeyConstants.inputsDir} - Directory in which the properties files read for each generated
+ *       class are listed, one path per line, in a file named after the class with the {@code .inputs} extension.
+ *       The paths are as specified by the annotation. The build declares the listed files as compilation inputs.
+ *       By default, the files are not listed.</li>
+ * </ul>
+ */
+@SupportedAnnotationTypes("org.cthing.gradle.plugins.properties.PropertyKeyConstants")
+@SupportedOptions({ PropertyKeyConstantsProcessor.BASE_DIR_OPTION,
+                    PropertyKeyConstantsProcessor.MEMORY_MAP_THRESHOLD_OPTION,
+                    PropertyKeyConstantsProcessor.INPUTS_DIR_OPTION })
+public class PropertyKeyConstantsProcessor extends AbstractProcessor {
+
+    static final String BASE_DIR_OPTION = "propertyKeyConstants.baseDir";
+    static final String MEMORY_MAP_THRESHOLD_OPTION = "propertyKeyConstants.memoryMapThreshold";
+    static final String INPUTS_DIR_OPTION = "propertyKeyConstants.inputsDir";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        final Map<String, String> options = this.processingEnv.getOptions();
+        final Path baseDir = Path.of(options.getOrDefault(BASE_DIR_OPTION, ""));
+        final String threshold = options.get(MEMORY_MAP_THRESHOLD_OPTION);
+        final long memoryMapThreshold = threshold == null
+                                        ? PropertyKeys.DEFAULT_MEMORY_MAP_THRESHOLD
+                                        : Long.parseLong(threshold);
+        final String inputsDir = options.get(INPUTS_DIR_OPTION);
+
+        for (final Element element : roundEnv.getElementsAnnotatedWith(PropertyKeyConstants.class)) {
+            final PropertyKeyConstants annotation = element.getAnnotation(PropertyKeyConstants.class);
+            if (inputsDir != null) {
+                writeInputs(annotation, element, Path.of(inputsDir));
+            }
+            generate(annotation, element, baseDir, memoryMapThreshold);
+        }
+        return true;
+    }
+
+    /**
+     * Generates the constants class requested by the specified annotation.
+     *
+     * @param annotation Annotation describing the class to generate
+     * @param element Annotated element, which is the originating element of the generated class
+     * @param baseDir Directory against which relative properties file paths are resolved
+     * @param memoryMapThreshold Minimum file size in bytes for scanning the memory mapped file
+     */
+    private void generate(final PropertyKeyConstants annotation, final Element element, final Path baseDir,
+                          final long memoryMapThreshold) {
+        final Messager messager = this.processingEnv.getMessager();
+        final String classname = annotation.classname();
+        if (classname.lastIndexOf('.') < 1) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                                  "Constants class name must be fully qualified: " + classname, element);
+            return;
+        }
+
+        final List<PropertyKeys> properties = new ArrayList<>();
+        for (final String file : annotation.files()) {
+            final Path propertiesFile = baseDir.resolve(file);
+            try {
+                properties.add(PropertyKeys.read(propertiesFile, memoryMapThreshold));
+            } catch (final IOException | IllegalArgumentException ex) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                                      "Could not read properties file " + propertiesFile + ": " + ex.getMessage(),
+                                      element);
+                return;
+            }
+        }
+
+        final ConstantsGenerator generator = new ConstantsGenerator(classname, annotation.sourceAccess(),
+                                                                    annotation.sourceLayout(), annotation.keyIndex(),
+                                                                    SourceLanguage.JAVA);
+        final Filer filer = this.processingEnv.getFiler();
+        try (PrintWriter writer = new PrintWriter(filer.createSourceFile(classname, element).openWriter())) {
+            generator.write(writer, properties);
+        } catch (final IOException ex) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                                  "Could not write constants class " + classname + ": " + ex.getMessage(), element);
+            return;
+        }
+
+        if (annotation.keyIndex()) {
+            final String indexPath = generator.getKeyIndexPath();
+            try (PrintWriter writer = new PrintWriter(
+                    new OutputStreamWriter(filer.createResource(StandardLocation.CLASS_OUTPUT, "", indexPath, element)
+                                                .openOutputStream(), StandardCharsets.UTF_8))) {
+                generator.writeKeyIndex(writer, properties);
+            } catch (final IOException ex) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                                      "Could not write key index " + indexPath + ": " + ex.getMessage(), element);
+            }
+        }
+    }
+
+    /**
+     * Lists the properties files read for the class requested by the specified annotation. The files are listed
+     * before they are read so that a file that could not be read is still an input of the next compilation.
+     *
+     * @param annotation Annotation describing the class to generate
+     * @param element Annotated element
+     * @param inputsDir Directory in which to list the properties files
+     */
+    private void writeInputs(final PropertyKeyConstants annotation, final Element element, final Path inputsDir) {
+        final Path inputsFile = inputsDir.resolve(annotation.classname() + ProcessorInputs.INPUTS_EXTENSION);
+        try {
+            Files.createDirectories(inputsDir);
+            Files.write(inputsFile, List.of(annotation.files()), StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                          "Could not write processor inputs " + inputsFile + ": "
+                                                                  + ex.getMessage(), element);
+        }
+    }
+}
@@ -7,52 +7,115 @@ package org.cthing.gradle.plugins.properties;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.cthing.annotations.AccessForTesting;
 import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.file.RelativePath;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
-import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.SourceTask;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.TaskExecutionException;
+import org.gradle.work.Incremental;
 
 
 /**
- * Performs the reading of the properties file(s) and generation of the constants class.
+ * Performs the reading of the properties file(s) and generation of the constants class(es).
  */
 public abstract class PropertyKeyConstantsTask extends SourceTask {
 
     private static final Logger LOGGER = Logging.getLogger(PropertyKeyConstantsTask.class);
-    private static final Pattern PROP_SEP_REGEX = Pattern.compile("[.\\-]");
-    private static final Pattern WORD_REGEX = Pattern.compile("[\\W_\\-]+|(?<=\\p{Ll})(?=\\p{Lu})");
 
     public PropertyKeyConstantsTask() {
         setGroup("Generate Constants");
 
-        // If there are no properties files, don't do anything.
-        onlyIf(task -> !getSource().isEmpty());
+        // If there are no properties files, don't do anything. None of the properties files are marked to skip the
+        // task when empty, because a task generating the key pool must run, and fail, when the pool has no files.
+        onlyIf(task -> hasSources());
     }
 
     /**
-     * Obtains the fully qualified name for the generated class (e.g. org.cthing.myapp.PropertyConstants).
+     * Indicates whether the task has any properties files, either directly or through its additional classes, or
+     * generates the key pool.
+     *
+     * @return {@code true} if there is at least one properties file to process or the key pool is generated.
+     */
+    boolean hasSources() {
+        return !getSource().isEmpty() || !getDiscoveredSource().isEmpty()
+                || getClasses().get().stream().anyMatch(cls -> !cls.getSource().isEmpty())
+                || getGenerateKeyPool().get();
+    }
+
+    /**
+     * Indicates whether the task is configured to generate a constants class or the key pool. Unlike
+     * {@link #hasSources()}, the properties files are not examined, so the result can be determined when the task
+     * graph is built without walking the source trees.
+     *
+     * @return {@code true} if the task declares at least one class to generate.
+     */
+    boolean declaresClasses() {
+        return getClassname().isPresent() || !getClasses().get().isEmpty() || getGenerateKeyPool().get();
+    }
+
+    /**
+     * Obtains the properties files whose keys are generated into the class named by {@link #getClassname()}. The
+     * files are annotated as incremental to replace the {@link org.gradle.api.tasks.SkipWhenEmpty} annotation of
+     * {@link SourceTask#getSource()}, so that a task generating only the key pool is not skipped.
+     *
+     * @return Properties files for the class.
+     */
+    @Override
+    @InputFiles
+    @Incremental
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.ABSOLUTE)
+    public FileTree getSource() {
+        return super.getSource();
+    }
+
+    /**
+     * Obtains the fully qualified name for the generated class (e.g. org.cthing.myapp.PropertyConstants). The
+     * class name must be specified when the task has properties files.
      *
      * @return Fully qualified class name.
      */
     @Input
+    @Optional
     public abstract Property<String> getClassname();
 
     /**
@@ -63,6 +126,15 @@ public abstract class PropertyKeyConstantsTask extends SourceTask {
     @OutputDirectory
     public abstract DirectoryProperty getOutputDirectory();
 
+    /**
+     * Obtains the location on the filesystem for generated resources. Native image metadata is written to this
+     * directory when {@link #getNativeImageMetadata()} is enabled.
+     *
+     * @return Resources output directory.
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getResourcesOutputDirectory();
+
     /**
      * Obtains the access modifier for the generated constants. The default is
      * {@link PropertyKeyConstantsExtension#getSourceAccess()}.
@@ -82,270 +154,694 @@ public abstract class PropertyKeyConstantsTask extends SourceTask {
     public abstract Property<SourceLayout> getSourceLayout();
 
     /**
-     * Generates the property key constants class.
+     * Obtains the language of the generated source files. The default is
+     * {@link PropertyKeyConstantsExtension#getSourceLanguage()}.
+     *
+     * @return Language of the generated source files.
+     */
+    @Input
+    public abstract Property<SourceLanguage> getSourceLanguage();
+
+    /**
+     * Obtains the number of source files into which each constants class is split. When greater than one, the
+     * properties files of a class are assigned to shards by a hash of their file names and the constants for each
+     * shard are written to a separate class named by appending {@code Shard} and the shard number to the class name.
+     * The class itself is not generated, so references to its constants must name the shard classes instead. The
+     * shard of a file only depends on its name and the shard count. Only shards with properties files are generated.
+     * The shards are written concurrently by at most as many threads as there are processors. The default is
+     * {@link PropertyKeyConstantsExtension#getShardCount()}.
+     *
+     * @return Number of source files for each constants class.
+     */
+    @Input
+    public abstract Property<Integer> getShardCount();
+
+    /**
+     * Obtains the size in bytes at or above which the keys of a properties file are extracted by scanning the memory
+     * mapped file. The default is {@link PropertyKeyConstantsExtension#getMemoryMapThreshold()}.
+     *
+     * @return Minimum properties file size for memory mapped key extraction.
+     */
+    @Internal
+    public abstract Property<Long> getMemoryMapThreshold();
+
+    /**
+     * Obtains the maximum number of properties files read at the same time. All properties files used by the task
+     * are read before any source is generated, so the latency of opening and reading files on a slow file system
+     * is overlapped rather than incurred one file at a time. The default is
+     * {@link PropertyKeyConstantsExtension#getReadConcurrency()}.
+     *
+     * @return Maximum number of properties files read concurrently.
+     */
+    @Internal
+    public abstract Property<Integer> getReadConcurrency();
+
+    /**
+     * Obtains the service providing the keys previously read from properties files and the source previously
+     * generated for them.
+     *
+     * @return Service caching properties file keys.
+     */
+    @Internal
+    public abstract Property<PropertyKeysService> getKeysService();
+
+    /**
+     * Obtains the resource directories of the task's source set. A properties file specified individually, rather
+     * than as part of a file tree, is located relative to the resource directory containing it to determine its
+     * resource path in the native image metadata.
+     *
+     * @return Resource directories of the source set.
+     */
+    @Internal
+    public abstract ConfigurableFileCollection getResourceDirectories();
+
+    /**
+     * Obtains the properties files discovered in the resource directories of the task's source set. The discovered
+     * files are written to the class named by {@link #getClassname()} after the files in {@link #getSource()}, in
+     * order of their resource paths so that the generated source does not depend on the order in which the file
+     * system lists directories. The default is the source set resources matching
+     * {@link PropertyKeyConstantsExtension#getDiscoveryIncludes()} when
+     * {@link PropertyKeyConstantsExtension#getDiscoverPropertiesFiles()} is enabled.
+     *
+     * @return Discovered properties files.
+     */
+    @InputFiles
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getDiscoveredSource();
+
+    /**
+     * Indicates whether GraalVM native image resource and reflection metadata is generated for each constants
+     * class. The resource paths of the properties files are their paths relative to the root of the file trees
+     * from which they are obtained or, for individually specified files, relative to the resource directory
+     * containing them. The default is {@link PropertyKeyConstantsExtension#getNativeImageMetadata()}.
+     *
+     * @return Whether native image metadata is generated.
+     */
+    @Input
+    public abstract Property<Boolean> getNativeImageMetadata();
+
+    /**
+     * Obtains the base names of the properties files to register as resource bundles in the native image metadata
+     * even though they have no locale variants. The base name of a properties file is its resource path without the
+     * extension and with slashes replaced by periods (e.g. org.cthing.myapp.messages). The default is
+     * {@link PropertyKeyConstantsExtension#getNativeImageBundles()}.
+     *
+     * @return Base names of additional resource bundles.
+     */
+    @Input
+    public abstract SetProperty<String> getNativeImageBundles();
+
+    /**
+     * Indicates whether key enumeration metadata is generated for each constants class. When enabled, each nested
+     * class, or the class itself for the flat layouts, has a {@code keys()} method returning the keys in ascending
+     * order and a {@code contains(String)} method that performs a binary search of the keys. In addition, a key index
+     * resource listing the keys of each properties file is written to the resources output directory. The default is
+     * {@link PropertyKeyConstantsExtension#getKeyIndex()}.
+     *
+     * @return Whether key enumeration metadata is generated.
+     */
+    @Input
+    public abstract Property<Boolean> getKeyIndex();
+
+    /**
+     * Obtains the additional constants classes generated by this task. The default is the classes in
+     * {@link PropertyKeyConstantsExtension#getClasses()} for the task's source set.
+     *
+     * @return Additional constants classes.
+     */
+    @Nested
+    public abstract ListProperty<ConstantsClass> getClasses();
+
+    /**
+     * Obtains the fully qualified name of the key pool class holding the constants for the common properties files
+     * in {@link #getKeyPoolSource()}. The default is {@link PropertyKeyConstantsExtension#getKeyPoolClassname()}.
+     *
+     * @return Fully qualified name of the key pool class.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getKeyPoolClassname();
+
+    /**
+     * Obtains the common properties files whose constants are held by the key pool class. A nested class generated
+     * for a properties file with the same name and keys as one of these files extends the corresponding class in the
+     * key pool rather than repeating the key literals. The key pool is only used by Java constants classes with the
+     * {@link SourceLayout#NESTED_CLASSES} layout. The default is
+     * {@link PropertyKeyConstantsExtension#getKeyPoolSource()}.
+     *
+     * @return Common properties files.
+     */
+    @InputFiles
+    @Optional
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract ConfigurableFileCollection getKeyPoolSource();
+
+    /**
+     * Indicates whether this task generates the key pool class. The pool is generated once, typically by the main
+     * source set of a shared project on which the projects using the pool depend. The pool is generated with the
+     * access of {@link #getSourceAccess()}, so it must be public to be used by public constants classes or by
+     * classes in other packages. The default is
+     * {@link PropertyKeyConstantsExtension#getGenerateKeyPool()} for the main source set, and {@code false} for other
+     * source sets.
+     *
+     * @return Whether the key pool class is generated.
+     */
+    @Input
+    public abstract Property<Boolean> getGenerateKeyPool();
+
+    /**
+     * Obtains the file to which the keys added to and removed from the properties files since the previous run of
+     * the task are written. Each line of the report is tab separated and consists of {@code +} for an added key or
+     * {@code -} for a removed key, the resource path of the properties file, and the key. A properties file whose
+     * path changed but whose keys did not is reported as {@code R}, its previous path and its new path. The report
+     * is only written if the file is specified. The default is
+     * {@code build/reports/property-key-constants/<source set>-key-changes.tsv} if
+     * {@link PropertyKeyConstantsExtension#getKeyChangeReport()} is enabled.
+     *
+     * @return Key change report file.
+     */
+    @OutputFile
+    @Optional
+    public abstract RegularFileProperty getKeyChangeReportFile();
+
+    /**
+     * Obtains the file in which the keys of the properties files are saved for comparison by the next run of the
+     * task when writing the key change report.
+     *
+     * @return File containing the keys of the previous run.
+     */
+    @LocalState
+    public abstract RegularFileProperty getKeyStateFile();
+
+    /**
+     * Generates the property key constants classes. Each properties file is read once regardless of the number of
+     * classes that use it.
      */
     @TaskAction
     public void generateConstants() {
-        final Provider<String> pathname = getClassname().map(cname -> cname.replace('.', '/') + ".java");
-        final File classFile = getOutputDirectory().file(pathname).get().getAsFile();
-        final File parentFile = classFile.getParentFile();
-        if (!parentFile.exists() && !parentFile.mkdirs()) {
-            throw new GradleException("Could not create directories " + parentFile);
-        }
-
-        final String cname = getClassname().get();
-        final int pos = cname.lastIndexOf('.');
-        assert pos != -1;
-        final String packageName = cname.substring(0, pos);
-        final String className = cname.substring(pos + 1);
-
-        try (PrintWriter writer = new PrintWriter(classFile, StandardCharsets.UTF_8)) {
-            LOGGER.info("Writing constants class {}.{}", packageName, className);
-            writeConstants(writer, packageName, className);
-        } catch (final IOException ex) {
-            throw new TaskExecutionException(this, ex);
+        final Map<File, PropertyKeys> keysCache = new HashMap<>();
+        final Map<String, PropertyKeys> resourceKeys = new HashMap<>();
+        final Set<String> classnames = new HashSet<>();
+        final Set<File> sourceFiles = new HashSet<>();
+
+        if (getShardCount().get() < 1) {
+            throw new GradleException("The shard count must be at least 1 in " + getPath());
+        }
+        if (getReadConcurrency().get() < 1) {
+            throw new GradleException("The read concurrency must be at least 1 in " + getPath());
+        }
+
+        // Remove metadata from a previous run so that it is not left behind for removed classes.
+        deleteContents(getResourcesOutputDirectory().get().getAsFile().toPath());
+
+        readAllPropertyKeys(keysCache);
+
+        final KeyPool keyPool = readKeyPool(keysCache);
+        if (getGenerateKeyPool().get()) {
+            writeKeyPool(keyPool, classnames, sourceFiles);
         }
+
+        if (!getSource().isEmpty() || !getDiscoveredSource().isEmpty()) {
+            if (!getClassname().isPresent()) {
+                throw new GradleException("A classname must be specified for the properties files in " + getPath());
+            }
+            final Map<File, String> resourcePaths = getResourcePaths(getSource());
+            final Map<File, String> discoveredPaths = getResourcePaths(getDiscoveredSource().getAsFileTree());
+            discoveredPaths.entrySet()
+                           .stream()
+                           .sorted(Map.Entry.comparingByValue())
+                           .forEach(entry -> resourcePaths.putIfAbsent(entry.getKey(), entry.getValue()));
+            writeClass(getClassname().get(), getSourceAccess().get(), getSourceLayout().get(), resourcePaths,
+                       keysCache, resourceKeys, keyPool, classnames, sourceFiles);
+        }
+
+        for (final ConstantsClass cls : getClasses().get()) {
+            writeClass(cls.getClassname().get(), cls.getSourceAccess().get(), cls.getSourceLayout().get(),
+                       getResourcePaths(cls.getSource().getAsFileTree()), keysCache, resourceKeys, keyPool,
+                       classnames, sourceFiles);
+        }
+
+        deleteStaleSources(classnames, sourceFiles);
+        writeKeyChangeReport(resourceKeys);
     }
 
     /**
-     * Performs the work of writing the Java class file containing the properties file keys as constants.
-     *
-     * @param writer  Writes the file
-     * @param packageName  The Java package containing the class
-     * @param className  Name of the top level class (not qualified by the package name)
-     */
-    private void writeConstants(final PrintWriter writer, final String packageName, final String className) {
-        final String modifier = getSourceAccess().get() == SourceAccess.PUBLIC ? "public " : "";
-        final String propFilesComment = getSource().getFiles()
-                                                   .stream()
-                                                   .map(File::getName)
-                                                   .sorted()
-                                                   .map(fname -> " *   <li>" + fname + "</li>")
-                                                   .collect(Collectors.joining("\n"));
-        writer.format("""
-                      //
-                      // DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
-                      //
-
-                      package %s;
-
-                      /**
-                       * Constants for property keys in:
-                       * <ul>
-                      %s
-                       * </ul>
-                       */
-                      @SuppressWarnings("all")
-                      %sfinal class %s {
-                      """, packageName, propFilesComment, modifier, className);
-
-        switch (getSourceLayout().get()) {
-            case NESTED_CLASSES -> writeNestedClasses(writer, modifier);
-            case FLAT_WITH_PREFIX -> writeFlatWithPrefix(writer, modifier);
-            case FLAT_WITHOUT_PREFIX -> writeFlatWithoutPrefix(writer, modifier);
-            default -> throw new GradleException("Unknown source layout");
-        }
-
-        writer.format("""
-
-                          private %s() { }
-                      }
-                      """, className);
+     * Verifies that the properties files of a constants class have distinct nested class names. The name of a nested
+     * class is derived from the name of its properties file, so files with the same base name in different
+     * directories (e.g. discovered in different packages) would produce duplicate nested classes.
+     *
+     * @param classname Fully qualified name of the constants class
+     * @param files Properties files of the constants class
+     */
+    private void checkNestedClassNames(final String classname, final Collection<File> files) {
+        final Map<String, File> nestedClasses = new HashMap<>();
+        for (final File file : files) {
+            final String nestedClassName = ConstantsGenerator.toCamelCase(ConstantsGenerator.getBasename(file));
+            final File otherFile = nestedClasses.putIfAbsent(nestedClassName, file);
+            if (otherFile != null) {
+                throw new GradleException(String.format(
+                        "Properties files %s and %s would both generate nested class %s of %s in %s. Generate a "
+                                + "separate class for one of them, exclude one of them, or use a source layout "
+                                + "without nested classes.", otherFile, file, nestedClassName, classname, getPath()));
+            }
+        }
     }
 
     /**
-     * Writes the property key constants wrapped in a nested class for each property file.
+     * Reads the keys from the specified properties files and writes the constants class and, if requested, its
+     * native image metadata.
      *
-     * @param writer Writes the file
-     * @param modifier Access modifier string
+     * @param classname Fully qualified name for the generated class
+     * @param sourceAccess Access modifier for the generated constants
+     * @param sourceLayout Layout for the generated source code
+     * @param resourcePaths Properties files whose keys are to be written, in order, with their resource paths
+     * @param keysCache Keys of the properties files that have already been read
+     * @param resourceKeys Receives the keys of the properties files by resource path
+     * @param keyPool Shared class containing the constants for common properties files
+     * @param classnames Names of the classes already generated by this task
+     * @param sourceFiles Source files already generated by this task
      */
-    private void writeNestedClasses(final PrintWriter writer, final String modifier) {
-        getSource().getFiles().forEach(propertiesFile -> {
-            LOGGER.info("Processing properties file ${propertiesFile}");
-            final String innerClassName = toCamelCase(getBasename(propertiesFile));
+    private void writeClass(final String classname, final SourceAccess sourceAccess, final SourceLayout sourceLayout,
+                            final Map<File, String> resourcePaths, final Map<File, PropertyKeys> keysCache,
+                            final Map<String, PropertyKeys> resourceKeys, final KeyPool keyPool,
+                            final Set<String> classnames, final Set<File> sourceFiles) {
+        if (!classnames.add(classname)) {
+            throw new GradleException("Constants class " + classname + " is specified more than once in " + getPath());
+        }
+
+        final boolean keyIndex = getKeyIndex().get();
+        final SourceLanguage sourceLanguage = getSourceLanguage().get();
+        final PropertyKeysCache cache = getKeysService().get().getCache();
+        final ConstantsGenerator generator = new ConstantsGenerator(classname, sourceAccess, sourceLayout, keyIndex,
+                                                                    sourceLanguage, cache, keyPool);
+
+        if (sourceLayout == SourceLayout.NESTED_CLASSES) {
+            checkNestedClassNames(classname, resourcePaths.keySet());
+        }
 
-            writer.format("""
+        final List<PropertyKeys> properties = new ArrayList<>();
+        resourcePaths.forEach((file, resourcePath) -> {
+            final PropertyKeys propertyKeys = keysCache.computeIfAbsent(file, this::readPropertyKeys);
+            properties.add(propertyKeys);
+            resourceKeys.put(resourcePath, propertyKeys);
+        });
 
-                              %sstatic final class %s {
-                          """, modifier, innerClassName);
+        if (sourceLayout == SourceLayout.NESTED_CLASSES && sourceLanguage == SourceLanguage.JAVA) {
+            final List<String> pooledKeys = properties.stream()
+                                                      .filter(keyPool::contains)
+                                                      .flatMap(propertyKeys -> propertyKeys.keys().stream())
+                                                      .toList();
+            if (!pooledKeys.isEmpty()) {
+                checkKeyPoolAccess(classname, sourceAccess, keyPool);
+                LOGGER.info("Constants class {} refers to key pool {} for {} keys, omitting {} bytes of key literals",
+                            classname, keyPool.getClassname(), pooledKeys.size(),
+                            pooledKeys.stream().mapToLong(key -> key.getBytes(StandardCharsets.UTF_8).length).sum());
+            }
+        }
 
-            final List<String> propNames = readPropertyNames(propertiesFile);
-            propNames.forEach(propName -> {
-                final String constantName = PROP_SEP_REGEX.matcher(propName).replaceAll("_").toUpperCase();
-                writer.format("        %sstatic final String %s = \"%s\";%n", modifier, constantName, propName);
+        final List<ClassSource> classSources = new ArrayList<>();
+        final int shardCount = getShardCount().get();
+        if (shardCount == 1) {
+            classSources.add(new ClassSource(classname, generator, properties));
+        } else {
+            final Map<Integer, List<PropertyKeys>> shardProperties = new TreeMap<>();
+            properties.forEach(propertyKeys -> shardProperties.computeIfAbsent(
+                    ConstantsGenerator.getShard(propertyKeys.filename(), shardCount),
+                    shard -> new ArrayList<>()).add(propertyKeys));
+            shardProperties.forEach((shard, keys) -> {
+                final String shardClassname = ConstantsGenerator.getShardClassname(classname, shard);
+                final ConstantsGenerator shardGenerator =
+                        new ConstantsGenerator(shardClassname, sourceAccess, sourceLayout, keyIndex, sourceLanguage,
+                                               cache, keyPool);
+                classSources.add(new ClassSource(shardClassname, shardGenerator, keys));
             });
+        }
 
-            writer.format("""
+        for (final ClassSource classSource : classSources) {
+            final File sourceFile =
+                    getOutputDirectory().file(classSource.generator().getSourcePath()).get().getAsFile();
+            createDirectories(sourceFile.getParentFile());
+            sourceFiles.add(sourceFile);
+        }
 
-                                  private %s() { }
-                              }
-                          """, innerClassName);
-        });
+        // The source files are independent of each other, so they are written concurrently. Generating the source
+        // is bound by the processor rather than by the file system, so the threads are limited to the processors.
+        final File outputDir = getOutputDirectory().get().getAsFile();
+        try {
+            ParallelTasks.run(classSources, Runtime.getRuntime().availableProcessors(),
+                              classSource -> writeSource(outputDir, classSource));
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
+        }
+
+        final List<String> resources = new ArrayList<>(resourcePaths.values());
+        if (keyIndex) {
+            final File indexFile = getResourcesOutputDirectory().file(generator.getKeyIndexPath()).get().getAsFile();
+            createDirectories(indexFile.getParentFile());
+            try (PrintWriter writer = new PrintWriter(indexFile, StandardCharsets.UTF_8)) {
+                generator.writeKeyIndex(writer, properties);
+            } catch (final IOException ex) {
+                throw new TaskExecutionException(this, ex);
+            }
+            resources.add(generator.getKeyIndexPath());
+        }
+
+        if (getNativeImageMetadata().get()) {
+            final List<String> generatedClassnames =
+                    classSources.stream()
+                                .flatMap(classSource -> classSource.generator()
+                                                                   .getClassnames(classSource.properties())
+                                                                   .stream())
+                                .toList();
+            writeNativeImageMetadata(classname, generatedClassnames, resources);
+        }
     }
 
     /**
-     * Write the property key constants as top level fields with a prefix based on the property file basename
-     * added to each constant.
+     * Writes the keys added to and removed from the properties files since the previous run of the task, and saves
+     * the current keys for the next run. If no report file is specified, any saved keys are deleted so that a later
+     * report does not compare with keys saved by a much earlier run.
      *
-     * @param writer Writes the file
-     * @param modifier Access modifier string
+     * @param resourceKeys Keys of the properties files by resource path
      */
-    private void writeFlatWithPrefix(final PrintWriter writer, final String modifier) {
-        getSource().getFiles().forEach(propertiesFile -> {
-            LOGGER.info("Processing properties file ${propertiesFile}");
-            final String prefix = toUpperCase(getBasename(propertiesFile));
+    private void writeKeyChangeReport(final Map<String, PropertyKeys> resourceKeys) {
+        final Path stateFile = getKeyStateFile().get().getAsFile().toPath();
+        try {
+            if (!getKeyChangeReportFile().isPresent()) {
+                Files.deleteIfExists(stateFile);
+                return;
+            }
 
-            final List<String> propNames = readPropertyNames(propertiesFile);
-            writer.println();
-            propNames.forEach(propName -> {
-                final String constantName = PROP_SEP_REGEX.matcher(propName).replaceAll("_").toUpperCase();
-                writer.format("    %sstatic final String %s_%s = \"%s\";%n", modifier, prefix, constantName, propName);
+            final KeyChangeReport report = new KeyChangeReport(stateFile);
+            resourceKeys.forEach((resourcePath, propertyKeys) -> report.add(resourcePath, propertyKeys.keys()));
+            final List<KeyChangeReport.Change> changes = report.getChanges();
+
+            final File reportFile = getKeyChangeReportFile().get().getAsFile();
+            createDirectories(reportFile.getParentFile());
+            try (PrintWriter writer = new PrintWriter(reportFile, StandardCharsets.UTF_8)) {
+                LOGGER.info("Writing {} key changes to {}", changes.size(), reportFile);
+                KeyChangeReport.writeReport(writer, changes);
+            }
+            report.save();
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
+        }
+    }
+
+    /**
+     * Reads the keys of all properties files used by the task concurrently. Each file is read once, and its keys are
+     * placed in the cache in the order in which the files are specified, regardless of the order in which the reads
+     * complete.
+     *
+     * @param keysCache Receives the keys of the properties files
+     */
+    private void readAllPropertyKeys(final Map<File, PropertyKeys> keysCache) {
+        final Set<File> files = new LinkedHashSet<>();
+        if (getKeyPoolClassname().isPresent()) {
+            files.addAll(getKeyPoolSource().getAsFileTree().getFiles());
+        }
+        files.addAll(getSource().getFiles());
+        files.addAll(getDiscoveredSource().getAsFileTree().getFiles());
+        getClasses().get().forEach(cls -> files.addAll(cls.getSource().getAsFileTree().getFiles()));
+
+        final List<File> fileList = new ArrayList<>(files);
+        final PropertyKeysCache cache = getKeysService().get().getCache();
+        final long memoryMapThreshold = getMemoryMapThreshold().get();
+        try {
+            final List<PropertyKeys> keys = ParallelTasks.run(fileList, getReadConcurrency().get(), file -> {
+                final PropertyKeys cached = cache.get(file.toPath());
+                if (cached != null) {
+                    LOGGER.info("Using the cached keys of properties file {}", file);
+                    return cached;
+                }
+                LOGGER.info("Processing properties file {}", file);
+                return cache.load(file.toPath(), memoryMapThreshold);
             });
-        });
+            for (int i = 0; i < fileList.size(); i++) {
+                keysCache.put(fileList.get(i), keys.get(i));
+            }
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
+        }
     }
 
     /**
-     * Write the property key constants as top level fields. Beware that if multiple property files are specified,
-     * constant names may collide using this layout.
+     * Reads the keys of the common properties files held by the key pool.
      *
-     * @param writer Writes the file
-     * @param modifier Access modifier string
+     * @param keysCache Keys of the properties files that have already been read
+     * @return Key pool. If no key pool class is specified, an empty pool is returned.
      */
-    private void writeFlatWithoutPrefix(final PrintWriter writer, final String modifier) {
-        getSource().getFiles().forEach(propertiesFile -> {
-            LOGGER.info("Processing properties file ${propertiesFile}");
+    private KeyPool readKeyPool(final Map<File, PropertyKeys> keysCache) {
+        if (!getKeyPoolClassname().isPresent()) {
+            if (getGenerateKeyPool().get()) {
+                throw new GradleException("A key pool classname must be specified to generate the key pool in "
+                                          + getPath());
+            }
+            return KeyPool.NONE;
+        }
 
-            final List<String> propNames = readPropertyNames(propertiesFile);
-            writer.println();
-            propNames.forEach(propName -> {
-                final String constantName = PROP_SEP_REGEX.matcher(propName).replaceAll("_").toUpperCase();
-                writer.format("    %sstatic final String %s = \"%s\";%n", modifier, constantName, propName);
-            });
-        });
+        if (getGenerateKeyPool().get() && getKeyPoolSource().isEmpty()) {
+            throw new GradleException("Key pool " + getKeyPoolClassname().get() + " has no properties files in "
+                                      + getPath() + "; specify the common properties files using keyPoolSource");
+        }
+
+        final List<PropertyKeys> properties = new ArrayList<>();
+        getKeyPoolSource().getAsFileTree().forEach(file -> properties.add(keysCache.computeIfAbsent(file,
+                                                                                           this::readPropertyKeys)));
+        return new KeyPool(getKeyPoolClassname().get(), properties);
     }
 
     /**
-     * Loads the specified Java properties file and returns the property keys.
+     * Verifies that a constants class referring to the key pool generated by this task can access it. The pool has
+     * the access of this task, so a pool with package private access can only be used by package private constants
+     * classes in the same package as the pool.
      *
-     * @param propertiesFile  Properties file whose keys are to be returned
-     * @return Sorted keys in the specified properties file.
+     * @param classname Fully qualified name of the constants class
+     * @param sourceAccess Access modifier for the constants class
+     * @param keyPool Key pool to which the constants class refers
+     */
+    private void checkKeyPoolAccess(final String classname, final SourceAccess sourceAccess, final KeyPool keyPool) {
+        if (!getGenerateKeyPool().get() || getSourceAccess().get() == SourceAccess.PUBLIC) {
+            return;
+        }
+
+        final String poolClassname = keyPool.getClassname();
+        final String poolPackage = poolClassname.substring(0, poolClassname.lastIndexOf('.'));
+        final String classPackage = classname.substring(0, classname.lastIndexOf('.'));
+        if (sourceAccess == SourceAccess.PUBLIC || !poolPackage.equals(classPackage)) {
+            throw new GradleException("Constants class " + classname + " cannot use the package private key pool "
+                                      + poolClassname + " in " + getPath() + "; generate the key pool with public "
+                                      + "access or the constants class with package access in the package of the "
+                                      + "key pool");
+        }
+    }
+
+    /**
+     * Writes the key pool class.
+     *
+     * @param keyPool Key pool to write
+     * @param classnames Names of the classes already generated by this task
+     * @param sourceFiles Source files already generated by this task
      */
-    private List<String> readPropertyNames(final File propertiesFile) {
-        final Properties properties = new Properties();
-        try (InputStream inputStream = Files.newInputStream(propertiesFile.toPath())) {
-            properties.load(inputStream);
+    private void writeKeyPool(final KeyPool keyPool, final Set<String> classnames, final Set<File> sourceFiles) {
+        final String classname = keyPool.getClassname();
+        if (getSourceLanguage().get() != SourceLanguage.JAVA) {
+            throw new GradleException("The key pool " + classname + " can only be generated as Java source in "
+                                      + getPath());
+        }
+        if (!classnames.add(classname)) {
+            throw new GradleException("Constants class " + classname + " is specified more than once in " + getPath());
+        }
+
+        final ConstantsGenerator generator = new ConstantsGenerator(classname, getSourceAccess().get(),
+                                                                    SourceLayout.NESTED_CLASSES, false,
+                                                                    SourceLanguage.JAVA);
+        final File sourceFile = getOutputDirectory().file(generator.getSourcePath()).get().getAsFile();
+        createDirectories(sourceFile.getParentFile());
+        sourceFiles.add(sourceFile);
+
+        try (PrintWriter writer = new PrintWriter(sourceFile, StandardCharsets.UTF_8)) {
+            LOGGER.info("Writing key pool class {}", classname);
+            generator.writeKeyPool(writer, keyPool.getProperties());
         } catch (final IOException ex) {
             throw new TaskExecutionException(this, ex);
         }
-        return properties.stringPropertyNames().stream().sorted().toList();
     }
 
     /**
-     * Extracts the name of the specified file without its extension.
-     * <pre>
-     * abc.txt -> abc
-     * /x/y/z/abc.txt -> abc
-     * abc. -> abc
-     * abc -> abc
-     * .abc -> .abc
-     * </pre>
-     *
-     * @param file File whose basename is desired
-     * @return Name of the file without its extension. The name of the file (i.e. {@link File#getName()}) is returned
-     *      if it did not have an extension.
-     */
-    @AccessForTesting
-    static String getBasename(final File file) {
-        final String filename = file.getName();
-        final int pos = filename.lastIndexOf('.');
-        return pos < 1 ? filename : filename.substring(0, pos);
+     * Writes the source file for a constants class or one of its shards.
+     *
+     * @param outputDir Root directory of the generated source files
+     * @param classSource Class to write
+     * @return Source file written.
+     * @throws IOException if there was a problem writing the file
+     */
+    private static File writeSource(final File outputDir, final ClassSource classSource) throws IOException {
+        final File sourceFile = new File(outputDir, classSource.generator().getSourcePath());
+        try (PrintWriter writer = new PrintWriter(sourceFile, StandardCharsets.UTF_8)) {
+            LOGGER.info("Writing constants class {}", classSource.classname());
+            classSource.generator().write(writer, classSource.properties());
+        }
+        return sourceFile;
     }
 
     /**
-     * Converts the specified string to CamelCase.
-     * <pre>
-     * h -> H
-     * hello -> Hello
-     * Hello -> Hello
-     * HELLO -> Hello
-     * hello_world -> HelloWorld
-     * Hello_World -> HelloWorld
-     * hello-world -> HelloWorld
-     * hello.world -> HelloWorld
-     * hello__world -> HelloWorld
-     * HELLO_WORLD -> HelloWorld
-     * HelloWorld -> HelloWorld
-     * "" -> ""
-     * - -> ""
-     * _ -> ""
-     * . -> ""
-     * </pre>
-     *
-     * @param str  String to convert to camel case. Underscores are considered word separators.
-     * @return Specified string converted to camel case.
-     */
-    @AccessForTesting
-    @SuppressWarnings("Convert2streamapi")
-    static String toCamelCase(final String str) {
-        if (str.isEmpty()) {
-            return str;
-        }
-
-        final String[] words = WORD_REGEX.split(str);
-        if (words.length == 1) {
-            final String word = words[0];
-            return Character.toUpperCase(word.charAt(0)) + word.substring(1).toLowerCase();
-        }
-
-        final StringBuilder builder = new StringBuilder();
-        for (final String word : words) {
-            builder.append(Character.toUpperCase(word.charAt(0)))
-                   .append(word.substring(1).toLowerCase(Locale.ENGLISH));
-        }
-        return builder.toString();
+     * Deletes the source files generated by a previous run for the constants classes that are not generated by this
+     * run. These are the files generated for the other source language and for shards that are no longer generated,
+     * which would otherwise define classes twice or leave obsolete classes behind.
+     *
+     * @param classnames Names of the classes generated by this task
+     * @param sourceFiles Source files generated by this task
+     */
+    private void deleteStaleSources(final Set<String> classnames, final Set<File> sourceFiles) {
+        for (final String classname : classnames) {
+            final int pos = classname.lastIndexOf('.');
+            final File packageDir = getOutputDirectory().dir(classname.substring(0, pos).replace('.', '/'))
+                                                        .get()
+                                                        .getAsFile();
+            final Pattern sourcePattern = Pattern.compile(Pattern.quote(classname.substring(pos + 1))
+                                                          + "(Shard\\d+)?\\.(java|kt)");
+            final File[] files = packageDir.listFiles((dir, name) -> sourcePattern.matcher(name).matches());
+            if (files == null) {
+                continue;
+            }
+
+            for (final File file : files) {
+                if (!sourceFiles.contains(file)) {
+                    try {
+                        Files.delete(file.toPath());
+                    } catch (final IOException ex) {
+                        throw new TaskExecutionException(this, ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the specified directory and any missing parent directories.
+     *
+     * @param dir Directory to create
+     */
+    private static void createDirectories(final File dir) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new GradleException("Could not create directories " + dir);
+        }
+    }
+
+    /**
+     * Determines the resource paths of the properties files in the specified file tree.
+     *
+     * @param files Properties files
+     * @return Resource paths of the properties files in the order in which they are visited.
+     */
+    private Map<File, String> getResourcePaths(final FileTree files) {
+        final Map<File, String> resourcePaths = new LinkedHashMap<>();
+        files.visit(details -> {
+            if (!details.isDirectory()) {
+                resourcePaths.put(details.getFile(), getResourcePath(details));
+            }
+        });
+        return resourcePaths;
+    }
+
+    /**
+     * Determines the path of a properties file relative to the root of the resources. A file specified individually,
+     * rather than as part of a file tree, is located relative to the resource directory containing it.
+     *
+     * @param details Properties file being visited
+     * @return Path of the properties file relative to the root of the resources.
+     */
+    private String getResourcePath(final FileVisitDetails details) {
+        final RelativePath relativePath = details.getRelativePath();
+        if (relativePath.getSegments().length == 1) {
+            final Path file = details.getFile().toPath();
+            for (final File dir : getResourceDirectories()) {
+                final Path dirPath = dir.toPath();
+                if (file.startsWith(dirPath)) {
+                    return dirPath.relativize(file).toString().replace(File.separatorChar, '/');
+                }
+            }
+        }
+        return relativePath.getPathString();
+    }
+
+    /**
+     * Writes the GraalVM native image resource and reflection metadata for a constants class.
+     *
+     * @param classname Fully qualified name of the generated class
+     * @param classnames Binary names of the generated class and its nested classes
+     * @param resourcePaths Paths of the properties files, and the key index if generated, relative to the root of
+     *      the resources
+     */
+    private void writeNativeImageMetadata(final String classname, final List<String> classnames,
+                                          final List<String> resourcePaths) {
+        final NativeImageMetadata metadata = new NativeImageMetadata(classname);
+        final File metadataDir = getResourcesOutputDirectory().dir(metadata.getDirectoryPath()).get().getAsFile();
+        createDirectories(metadataDir);
+
+        LOGGER.info("Writing native image metadata for {}", classname);
+        try (PrintWriter writer = new PrintWriter(new File(metadataDir, NativeImageMetadata.RESOURCE_CONFIG),
+                                                  StandardCharsets.UTF_8)) {
+            metadata.writeResourceConfig(writer, resourcePaths, getNativeImageBundles().get());
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
+        }
+        try (PrintWriter writer = new PrintWriter(new File(metadataDir, NativeImageMetadata.REFLECT_CONFIG),
+                                                  StandardCharsets.UTF_8)) {
+            metadata.writeReflectConfig(writer, classnames);
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
+        }
     }
 
     /**
-     * Converts the specified string to all upper case. Changes in case are separated by underscores.
-     * <pre>
-     * "" -> ""
-     * h -> H
-     * hello -> HELLO
-     * Hello -> HELLO
-     * HELLO -> HELLO
-     * helloWorld -> HELLO_WORLD
-     * HelloWorld -> HELLO_WORLD
-     * hello_world -> HELLO_WORLD
-     * Hello_World -> HELLO_WORLD
-     * hello-world -> HELLO_WORLD
-     * hello.world -> HELLO_WORLD
-     * hello__world -> HELLO_WORLD
-     * HELLO_WORLD -> HELLO_WORLD
-     * - -> ""
-     * _ -> ""
-     * </pre>
-     *
-     * @param str String to convert to upper case.
-     * @return Specified string converted to upper case.
-     */
-    @AccessForTesting
-    static String toUpperCase(final String str) {
-        if (str.isEmpty()) {
-            return str;
-        }
-
-        final String[] words = WORD_REGEX.split(str);
-        if (words.length == 1) {
-            return words[0].toUpperCase(Locale.ENGLISH);
-        }
-
-        final StringBuilder builder = new StringBuilder();
-        for (final String word : words) {
-            if (!builder.isEmpty()) {
-                builder.append('_');
+     * Deletes the files and directories within the specified directory.
+     *
+     * @param dir Directory whose contents are to be deleted
+     */
+    private void deleteContents(final Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(dir)) {
+                    Files.delete(path);
+                }
             }
-            builder.append(word.toUpperCase(Locale.ENGLISH));
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
+        }
+    }
+
+    /**
+     * Reads the property keys from the specified Java properties, XML properties or YAML file. Keys read by another
+     * generation task of the build are reused if the content of the file has not changed.
+     *
+     * @param propertiesFile  Properties file whose keys are to be returned
+     * @return Sorted keys in the specified properties file.
+     */
+    private PropertyKeys readPropertyKeys(final File propertiesFile) {
+        LOGGER.info("Processing properties file {}", propertiesFile);
+
+        try {
+            return getKeysService().get().getCache().read(propertiesFile.toPath(), getMemoryMapThreshold().get());
+        } catch (final IOException ex) {
+            throw new TaskExecutionException(this, ex);
         }
-        return builder.toString();
+    }
+
+    /**
+     * Source file generated for a constants class or one of its shards.
+     *
+     * @param classname Fully qualified name of the generated class
+     * @param generator Writes the source file
+     * @param properties Keys for each properties file in the generated class
+     */
+    private record ClassSource(String classname, ConstantsGenerator generator, List<PropertyKeys> properties) {
     }
 }
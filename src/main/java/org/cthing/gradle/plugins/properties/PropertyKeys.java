@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+
+/**
+ * Keys read from a properties file.
+ *
+ * @param filename Name of the properties file without any directory components (e.g. messages.properties)
+ * @param keys Sorted keys in the properties file
+ */
+record PropertyKeys(String filename, List<String> keys) {
+
+    /**
+     * Default size in bytes at or above which the keys of a properties file are extracted by scanning the memory
+     * mapped file.
+     */
+    static final long DEFAULT_MEMORY_MAP_THRESHOLD = 64L * 1024 * 1024;
+
+    /**
+     * Default maximum number of properties files read at the same time by a constants generation task.
+     */
+    static final int DEFAULT_READ_CONCURRENCY = 8;
+
+    /**
+     * Patterns matching the names of the files whose keys can be read.
+     */
+    static final List<String> FILE_PATTERNS = List.of("**/*.properties", "**/*.xml", "**/*.yaml", "**/*.yml");
+
+    /**
+     * Reads the property keys from the specified file. The format of the file is determined by its extension. Files
+     * ending with {@code .xml} are read as XML properties files, files ending with {@code .yaml} or {@code .yml} are
+     * read as YAML files, and all other files are read as Java properties files. Java properties files at or above
+     * the memory map threshold are scanned for their keys without loading the property values. XML and YAML files
+     * are always streamed without loading their values.
+     *
+     * @param propertiesFile Properties file whose keys are to be returned
+     * @param memoryMapThreshold Minimum file size in bytes for scanning the memory mapped file
+     * @return Sorted keys in the specified properties file.
+     * @throws IOException if there was a problem reading the file
+     */
+    static PropertyKeys read(final Path propertiesFile, final long memoryMapThreshold) throws IOException {
+        final String filename = propertiesFile.getFileName().toString();
+        final String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        final List<String> keys;
+        if ("xml".equals(extension)) {
+            keys = XmlKeyReader.readKeys(propertiesFile);
+        } else if ("yaml".equals(extension) || "yml".equals(extension)) {
+            keys = YamlKeyReader.readKeys(propertiesFile);
+        } else if (Files.size(propertiesFile) >= memoryMapThreshold) {
+            keys = PropertiesKeyScanner.readKeys(propertiesFile);
+        } else {
+            keys = readPropertyNames(propertiesFile);
+        }
+        return new PropertyKeys(filename, keys);
+    }
+
+    /**
+     * Loads the specified Java properties file and returns the property keys.
+     *
+     * @param propertiesFile  Properties file whose keys are to be returned
+     * @return Sorted keys in the specified properties file.
+     * @throws IOException if there was a problem reading the file
+     */
+    private static List<String> readPropertyNames(final Path propertiesFile) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(propertiesFile)) {
+            properties.load(inputStream);
+        }
+        return properties.stringPropertyNames().stream().sorted().toList();
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+
+/**
+ * Bounded in-memory cache of the keys read from properties files and of the source generated for them. An entry is
+ * identified by the path of the properties file and is reused while the size and modification time of the file are
+ * unchanged, so a cache hit only costs reading the file attributes. A file whose modification time is so recent
+ * that a further change could leave it unchanged is also hashed, and its entry is only reused while the content
+ * hash is unchanged. The size of an entry is estimated from the lengths of its keys and of the source generated for
+ * them. Entries are evicted in least recently used order once the estimated size of the cache exceeds the maximum.
+ * The cache is safe for use by multiple threads and does not depend on the Gradle API.
+ */
+final class PropertyKeysCache implements ConstantsGenerator.FragmentCache {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Time in milliseconds within which a file modified after it was read may keep the same modification time. This
+     * covers the coarsest common file system timestamp resolution, which is two seconds.
+     */
+    static final long RACY_MILLIS = 2000;
+
+    /**
+     * Estimated number of bytes used by an entry in addition to its strings, including the path, the hash and the
+     * map entries referring to it.
+     */
+    static final long ENTRY_BYTES = 512;
+
+    /**
+     * Estimated number of bytes used by a string in addition to its characters, including the reference to it.
+     */
+    static final long STRING_BYTES = 56;
+
+    private final long maxBytes;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<PropertyKeys, Entry> entriesByKeys = new IdentityHashMap<>();
+    private long estimatedBytes;
+
+    /**
+     * Cached keys of a properties file.
+     *
+     * @param path Normalized absolute path of the properties file
+     * @param size Size of the properties file when it was read
+     * @param modified Modification time of the properties file when it was read
+     * @param hash Hash of the content of the properties file, if its modification time was too recent to identify
+     *      the content, otherwise {@code null}
+     * @param propertyKeys Keys of the properties file
+     * @param fragments Source generated for the keys, by generator variant
+     */
+    private record Entry(Path path, long size, FileTime modified, byte[] hash, PropertyKeys propertyKeys,
+                         Map<String, String> fragments) {
+    }
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxBytes Maximum estimated size in bytes of the cached keys and generated source. The most recently
+     *      used entry is retained even if it exceeds the maximum on its own.
+     */
+    PropertyKeysCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Obtains the keys of the specified properties file. If the file has been read before and has not changed, the
+     * cached keys are returned. Otherwise, the keys are read from the file and cached.
+     *
+     * @param propertiesFile Properties file whose keys are to be returned
+     * @param memoryMapThreshold Minimum file size in bytes for scanning the memory mapped file
+     * @return Keys of the properties file.
+     * @throws IOException if there was a problem reading the file
+     */
+    PropertyKeys read(final Path propertiesFile, final long memoryMapThreshold) throws IOException {
+        final PropertyKeys cached = get(propertiesFile);
+        return cached == null ? load(propertiesFile, memoryMapThreshold) : cached;
+    }
+
+    /**
+     * Obtains the cached keys of the specified properties file, if the file has been read before and has not
+     * changed. The file is only hashed when its modification time was too recent, when it was read, to identify its
+     * content.
+     *
+     * @param propertiesFile Properties file whose keys are to be returned
+     * @return Cached keys of the properties file, or {@code null} if the file has not been read or has changed.
+     * @throws IOException if there was a problem reading the attributes or content of the file
+     */
+    PropertyKeys get(final Path propertiesFile) throws IOException {
+        final Path path = propertiesFile.toAbsolutePath().normalize();
+        final long now = System.currentTimeMillis();
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(path);
+            if (entry == null || entry.size() != attributes.size()
+                    || !entry.modified().equals(attributes.lastModifiedTime())) {
+                return null;
+            }
+            if (entry.hash() == null) {
+                return entry.propertyKeys();
+            }
+        }
+
+        if (!Arrays.equals(entry.hash(), hash(path))) {
+            return null;
+        }
+
+        // Once the modification time is old enough to identify the content, the file is no longer hashed.
+        if (!isRacy(attributes.lastModifiedTime(), now)) {
+            synchronized (this) {
+                if (this.entries.get(path) == entry) {
+                    final Entry settled = new Entry(path, entry.size(), entry.modified(), null, entry.propertyKeys(),
+                                                    entry.fragments());
+                    this.entries.put(path, settled);
+                    this.entriesByKeys.put(entry.propertyKeys(), settled);
+                }
+            }
+        }
+        return entry.propertyKeys();
+    }
+
+    /**
+     * Reads the keys of the specified properties file and caches them, replacing any keys cached for the file.
+     *
+     * @param propertiesFile Properties file whose keys are to be read
+     * @param memoryMapThreshold Minimum file size in bytes for scanning the memory mapped file
+     * @return Keys of the properties file.
+     * @throws IOException if there was a problem reading the file
+     */
+    PropertyKeys load(final Path propertiesFile, final long memoryMapThreshold) throws IOException {
+        final Path path = propertiesFile.toAbsolutePath().normalize();
+
+        // The attributes, and hash if needed, are obtained before the file is read so that a change made while
+        // reading is detected by the next read.
+        final long now = System.currentTimeMillis();
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final byte[] hash = isRacy(attributes.lastModifiedTime(), now) ? hash(path) : null;
+
+        final PropertyKeys propertyKeys = PropertyKeys.read(path, memoryMapThreshold);
+        synchronized (this) {
+            remove(this.entries.get(path));
+            final Entry entry = new Entry(path, attributes.size(), attributes.lastModifiedTime(), hash, propertyKeys,
+                                          new HashMap<>());
+            this.entries.put(path, entry);
+            this.entriesByKeys.put(propertyKeys, entry);
+            this.estimatedBytes += estimateBytes(propertyKeys);
+            evict();
+        }
+        return propertyKeys;
+    }
+
+    @Override
+    public String getFragment(final PropertyKeys propertyKeys, final String variant,
+                              final Supplier<String> generator) {
+        final Entry entry;
+        synchronized (this) {
+            entry = this.entriesByKeys.get(propertyKeys);
+            if (entry == null) {
+                return generator.get();
+            }
+            final String fragment = entry.fragments().get(variant);
+            if (fragment != null) {
+                return fragment;
+            }
+        }
+
+        // The entry may have been evicted or replaced while the fragment was generated, in which case the fragment
+        // is not cached.
+        final String fragment = generator.get();
+        synchronized (this) {
+            if (this.entriesByKeys.get(propertyKeys) == entry && !entry.fragments().containsKey(variant)) {
+                entry.fragments().put(variant, fragment);
+                this.estimatedBytes += estimateBytes(variant) + estimateBytes(fragment);
+                this.entries.get(entry.path());
+                evict();
+            }
+        }
+        return fragment;
+    }
+
+    /**
+     * Obtains the number of properties files whose keys are cached.
+     *
+     * @return Number of cached properties files.
+     */
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Obtains the estimated size of the cached keys and generated source.
+     *
+     * @return Estimated size of the cache contents in bytes.
+     */
+    synchronized long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    /**
+     * Estimates the number of bytes used by an entry for the specified keys, without any generated source.
+     *
+     * @param propertyKeys Keys of a properties file
+     * @return Estimated size of an entry in bytes.
+     */
+    static long estimateBytes(final PropertyKeys propertyKeys) {
+        long bytes = ENTRY_BYTES + estimateBytes(propertyKeys.filename());
+        for (final String key : propertyKeys.keys()) {
+            bytes += estimateBytes(key);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the number of bytes used by the specified string, assuming two bytes per character.
+     *
+     * @param str String whose size is to be estimated
+     * @return Estimated size of the string in bytes.
+     */
+    static long estimateBytes(final String str) {
+        return STRING_BYTES + 2L * str.length();
+    }
+
+    /**
+     * Removes the specified entry from the index by keys and from the estimated size of the cache. The caller is
+     * responsible for removing the entry from the map of entries by path.
+     *
+     * @param entry Entry to remove. If {@code null}, nothing is removed.
+     */
+    private void remove(final Entry entry) {
+        if (entry != null) {
+            this.entriesByKeys.remove(entry.propertyKeys());
+            long bytes = estimateBytes(entry.propertyKeys());
+            for (final Map.Entry<String, String> fragment : entry.fragments().entrySet()) {
+                bytes += estimateBytes(fragment.getKey()) + estimateBytes(fragment.getValue());
+            }
+            this.estimatedBytes -= bytes;
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the estimated size of the cache is within the maximum, retaining
+     * at least the most recently used entry.
+     */
+    private void evict() {
+        final Iterator<Entry> iter = this.entries.values().iterator();
+        while (this.estimatedBytes > this.maxBytes && this.entries.size() > 1) {
+            remove(iter.next());
+            iter.remove();
+        }
+    }
+
+    /**
+     * Indicates whether a file with the specified modification time could be changed again without changing its
+     * modification time, so that the modification time does not identify the content read at the specified time.
+     *
+     * @param modified Modification time of the file
+     * @param readMillis Time at which the file is read, in milliseconds since the epoch
+     * @return {@code true} if the modification time is too recent to identify the content.
+     */
+    private static boolean isRacy(final FileTime modified, final long readMillis) {
+        return modified.toMillis() > readMillis - RACY_MILLIS;
+    }
+
+    /**
+     * Computes a hash of the content of the specified file.
+     *
+     * @param file File to hash
+     * @return Hash of the file content.
+     * @throws IOException if there was a problem reading the file
+     */
+    private static byte[] hash(final Path file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return digest.digest();
+    }
+}
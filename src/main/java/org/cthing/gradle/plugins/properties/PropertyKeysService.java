@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+
+/**
+ * Shared build service that provides the constants generation tasks with the keys previously read from properties
+ * files and the source previously generated for them. The cache is held in a static field rather than by the service
+ * instance, so that it outlives the build. Gradle reuses the class loader of the plugin for the builds run by a
+ * daemon while the build script classpath is unchanged, so the cache is shared by all generation tasks of those
+ * builds, including the rebuilds of a continuous build. The cache is bounded by the estimated size of its contents,
+ * including the generated source.
+ */
+public abstract class PropertyKeysService implements BuildService<BuildServiceParameters.None> {
+
+    /**
+     * Name under which the service is registered.
+     */
+    public static final String SERVICE_NAME = "propertyKeys";
+
+    /**
+     * Maximum estimated size in bytes of the keys and generated source held by the cache.
+     */
+    static final long MAX_CACHED_BYTES = 64L * 1024 * 1024;
+
+    private static final PropertyKeysCache CACHE = new PropertyKeysCache(MAX_CACHED_BYTES);
+
+    /**
+     * Obtains the cache of properties file keys and generated source.
+     *
+     * @return Cache shared by the builds run with the class loader of the plugin.
+     */
+    PropertyKeysCache getCache() {
+        return CACHE;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+/**
+ * Specifies the language of the generated source file.
+ */
+public enum SourceLanguage {
+
+    /**
+     * Generates a Java class with {@code static final} fields. This is the default language.
+     */
+    JAVA,
+
+    /**
+     * Generates a Kotlin object with {@code const val} properties. The generated file is compiled by the Kotlin
+     * compiler, so a Kotlin only source set does not require the Java compiler.
+     */
+    KOTLIN,
+}
@@ -28,4 +28,12 @@ public enum SourceLayout {
      * specified, the generated constant names may collide.
      */
     FLAT_WITHOUT_PREFIX,
+
+    /**
+     * The key constants for all property files are arranged in nested classes following the dot separated segments
+     * of the keys. A nested class is generated for each key prefix shared by more than one key, so the constant for
+     * {@code db.pool.max.size} is {@code Db.Pool.MAX_SIZE} when other keys begin with {@code db.pool}. This layout
+     * keeps the number of members in each class small for large sets of hierarchical keys.
+     */
+    PREFIX_TREE,
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.InvalidPropertiesFormatException;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+
+/**
+ * Extracts the keys from a properties file in the XML format read by
+ * {@link java.util.Properties#loadFromXML(InputStream)}. The file is read using a StAX stream reader, so only the
+ * {@code key} attribute of each {@code entry} element is retained. Property values and comments are skipped
+ * without being collected, so the heap used is bounded by the size of the keys rather than the size of the file.
+ * As with {@code loadFromXML}, a document type declaration is required, but DTD processing is disabled so the
+ * properties DTD it references is never fetched.
+ */
+final class XmlKeyReader {
+
+    private static final String PROPERTIES_ELEMENT = "properties";
+    private static final String COMMENT_ELEMENT = "comment";
+    private static final String ENTRY_ELEMENT = "entry";
+    private static final String KEY_ATTRIBUTE = "key";
+
+    private XmlKeyReader() {
+    }
+
+    /**
+     * Reads the keys from the specified XML properties file.
+     *
+     * @param propertiesFile Properties file whose keys are to be returned
+     * @return Sorted keys in the specified properties file.
+     * @throws IOException if there was a problem reading the file
+     * @throws InvalidPropertiesFormatException if the file is not a well-formed XML properties document
+     */
+    static List<String> readKeys(final Path propertiesFile) throws IOException {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(propertiesFile))) {
+            final XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+            try {
+                return readKeys(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException ex) {
+            final InvalidPropertiesFormatException formatException =
+                    new InvalidPropertiesFormatException("Malformed XML properties file " + propertiesFile);
+            formatException.initCause(ex);
+            throw formatException;
+        }
+    }
+
+    /**
+     * Reads the keys from the entries of a properties document.
+     *
+     * @param reader Reader positioned at the start of the document
+     * @return Sorted keys in the document.
+     * @throws XMLStreamException if the document is not well-formed
+     * @throws InvalidPropertiesFormatException if the document does not follow the properties DTD
+     */
+    private static List<String> readKeys(final XMLStreamReader reader)
+            throws XMLStreamException, InvalidPropertiesFormatException {
+        final SortedSet<String> keys = new TreeSet<>();
+
+        // As with Properties.loadFromXML, the document type declaration is required.
+        boolean doctype = false;
+        int event = reader.getEventType();
+        while (event != XMLStreamConstants.START_ELEMENT && reader.hasNext()) {
+            doctype |= event == XMLStreamConstants.DTD;
+            event = reader.next();
+        }
+        if (!doctype) {
+            throw new InvalidPropertiesFormatException("Expected a document type declaration");
+        }
+        if (event != XMLStreamConstants.START_ELEMENT || !PROPERTIES_ELEMENT.equals(reader.getLocalName())) {
+            throw new InvalidPropertiesFormatException("Expected a properties element");
+        }
+
+        event = reader.nextTag();
+        while (event == XMLStreamConstants.START_ELEMENT) {
+            final String element = reader.getLocalName();
+            if (ENTRY_ELEMENT.equals(element)) {
+                final String key = reader.getAttributeValue(null, KEY_ATTRIBUTE);
+                if (key == null) {
+                    throw new InvalidPropertiesFormatException("Entry without a key at line "
+                                                               + reader.getLocation().getLineNumber());
+                }
+                keys.add(key);
+            } else if (!COMMENT_ELEMENT.equals(element)) {
+                throw new InvalidPropertiesFormatException("Unexpected element " + element + " at line "
+                                                           + reader.getLocation().getLineNumber());
+            }
+            skipContent(reader);
+            event = reader.nextTag();
+        }
+
+        return List.copyOf(keys);
+    }
+
+    /**
+     * Skips the text content of the current element without accumulating it. On return, the reader is positioned
+     * at the end tag of the element.
+     *
+     * @param reader Reader positioned at the start tag of an {@code entry} or {@code comment} element
+     * @throws XMLStreamException if the document is not well-formed
+     * @throws InvalidPropertiesFormatException if the element contains child elements
+     */
+    private static void skipContent(final XMLStreamReader reader)
+            throws XMLStreamException, InvalidPropertiesFormatException {
+        int event = reader.next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                throw new InvalidPropertiesFormatException("Unexpected element " + reader.getLocalName()
+                                                           + " at line " + reader.getLocation().getLineNumber());
+            }
+            event = reader.next();
+        }
+    }
+}
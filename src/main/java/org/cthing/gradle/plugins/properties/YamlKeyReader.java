@@ -0,0 +1,418 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+
+/**
+ * Extracts the keys from a YAML configuration file consisting of block mappings. Keys of nested mappings are joined
+ * with a period, so that a file containing {@code server:} followed by an indented {@code port: 8080} has the key
+ * {@code server.port}, the same key as {@code server.port: 8080}. Only the keys of scalar values, sequences and flow
+ * collections are reported, and those values are treated as opaque (e.g. a sequence value does not contribute
+ * indexed keys). The file is read a line at a time and each line produces at most one mapping entry event, so the
+ * state retained is the stack of enclosing keys and the keys found. Values are skipped without being parsed,
+ * including multi-line plain and quoted scalars, block scalars and sequences. Multiple documents contribute their
+ * keys to the same set. Explicit keys, merge keys and flow collections used as keys are not supported.
+ */
+final class YamlKeyReader {
+
+    private static final int NONE = -1;
+
+    private final BufferedReader reader;
+    private final Path file;
+    private final SortedSet<String> keys = new TreeSet<>();
+    private final Deque<Mapping> mappings = new ArrayDeque<>();
+    private final StringBuilder keyBuilder = new StringBuilder();
+    private int lineNumber;
+    private String pendingKey;
+    private int pendingIndent;
+    private int skipIndent = NONE;
+    private int sequenceIndent = NONE;
+
+    /**
+     * A block mapping enclosing the current line.
+     *
+     * @param indent Indentation of the keys in the mapping
+     * @param prefix Prefix for the keys in the mapping, ending with a period unless it is the root mapping
+     */
+    private record Mapping(int indent, String prefix) {
+    }
+
+    private YamlKeyReader(final BufferedReader reader, final Path file) {
+        this.reader = reader;
+        this.file = file;
+    }
+
+    /**
+     * Reads the keys from the specified YAML file.
+     *
+     * @param yamlFile UTF-8 encoded YAML file whose keys are to be returned
+     * @return Sorted keys in the specified file.
+     * @throws IOException if there was a problem reading the file or the file uses an unsupported construct
+     */
+    static List<String> readKeys(final Path yamlFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(yamlFile, StandardCharsets.UTF_8)) {
+            return new YamlKeyReader(reader, yamlFile).read();
+        }
+    }
+
+    /**
+     * Reads the entire file, processing each line as an event.
+     *
+     * @return Sorted keys in the file.
+     * @throws IOException if there was a problem reading the file or it uses an unsupported construct
+     */
+    private List<String> read() throws IOException {
+        String line = this.reader.readLine();
+        if (line != null && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1);
+        }
+        while (line != null) {
+            this.lineNumber++;
+            processLine(line);
+            line = this.reader.readLine();
+        }
+        endValue();
+        return List.copyOf(this.keys);
+    }
+
+    /**
+     * Processes a single line of the file.
+     *
+     * @param line Line to process
+     * @throws IOException if the line uses an unsupported construct
+     */
+    private void processLine(final String line) throws IOException {
+        int indent = 0;
+        while (indent < line.length() && line.charAt(indent) == ' ') {
+            indent++;
+        }
+        final String content = line.substring(indent);
+        if (content.isBlank() || content.charAt(0) == '#') {
+            return;
+        }
+
+        // Lines belonging to the value of the previous entry.
+        if (this.skipIndent != NONE) {
+            if (indent > this.skipIndent || (indent == this.sequenceIndent && isSequenceEntry(content))) {
+                return;
+            }
+            this.skipIndent = NONE;
+            this.sequenceIndent = NONE;
+        }
+
+        if (indent == 0 && (isMarker(content, "---") || isMarker(content, "..."))) {
+            endValue();
+            this.mappings.clear();
+            return;
+        }
+        if (indent == 0 && content.charAt(0) == '%') {
+            return;
+        }
+        if (content.charAt(0) == '\t') {
+            throw error("Tabs cannot be used for indentation");
+        }
+
+        if (this.pendingKey != null) {
+            if (isSequenceEntry(content) && indent >= this.pendingIndent) {
+                // A sequence is the value of the pending key.
+                this.keys.add(this.pendingKey);
+                this.pendingKey = null;
+                this.skipIndent = this.pendingIndent;
+                this.sequenceIndent = indent;
+                return;
+            }
+            if (indent > this.pendingIndent) {
+                // A nested mapping is the value of the pending key.
+                this.mappings.push(new Mapping(indent, this.pendingKey + "."));
+                this.pendingKey = null;
+            } else {
+                endValue();
+            }
+        }
+
+        if (this.mappings.isEmpty()) {
+            this.mappings.push(new Mapping(indent, ""));
+        }
+        while (this.mappings.size() > 1 && indent < this.mappings.peek().indent()) {
+            this.mappings.pop();
+        }
+        if (indent != this.mappings.peek().indent()) {
+            throw error("Unexpected indentation");
+        }
+
+        processEntry(content, indent);
+    }
+
+    /**
+     * Processes a mapping entry.
+     *
+     * @param content Line without its indentation
+     * @param indent Indentation of the line
+     * @throws IOException if the entry uses an unsupported construct
+     */
+    private void processEntry(final String content, final int indent) throws IOException {
+        if (isSequenceEntry(content)) {
+            throw error("Sequences are only supported as mapping values");
+        }
+        final char first = content.charAt(0);
+        if (first == '?' || first == '{' || first == '[') {
+            throw error("Only simple keys are supported");
+        }
+
+        final int valueStart = parseKey(content);
+        final String key = this.keyBuilder.toString();
+        if ("<<".equals(key) && first != '"' && first != '\'') {
+            throw error("Merge keys are not supported");
+        }
+
+        final String fullKey = this.mappings.peek().prefix() + key;
+        if (hasValue(content, valueStart)) {
+            this.keys.add(fullKey);
+            this.skipIndent = indent;
+        } else {
+            this.pendingKey = fullKey;
+            this.pendingIndent = indent;
+        }
+    }
+
+    /**
+     * Parses the key of a mapping entry into the key builder.
+     *
+     * @param content Line without its indentation
+     * @return Index of the first character following the colon separating the key from the value.
+     * @throws IOException if the line is not a mapping entry
+     */
+    private int parseKey(final String content) throws IOException {
+        this.keyBuilder.setLength(0);
+
+        int pos;
+        final char first = content.charAt(0);
+        if (first == '"') {
+            pos = parseDoubleQuoted(content);
+        } else if (first == '\'') {
+            pos = parseSingleQuoted(content);
+        } else {
+            pos = 0;
+            while (pos < content.length() && !isSeparator(content, pos)) {
+                if (content.charAt(pos) == '#' && pos > 0 && isWhitespace(content.charAt(pos - 1))) {
+                    throw error("Expected a mapping entry");
+                }
+                pos++;
+            }
+            this.keyBuilder.append(content, 0, pos);
+            while (!this.keyBuilder.isEmpty() && isWhitespace(this.keyBuilder.charAt(this.keyBuilder.length() - 1))) {
+                this.keyBuilder.setLength(this.keyBuilder.length() - 1);
+            }
+        }
+
+        while (pos < content.length() && isWhitespace(content.charAt(pos))) {
+            pos++;
+        }
+        if (!isSeparator(content, pos)) {
+            throw error("Expected a mapping entry");
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Parses a double quoted key, converting its escape sequences.
+     *
+     * @param content Line starting with the key
+     * @return Index of the character following the closing quote.
+     * @throws IOException if the key is not terminated on the line or contains an invalid escape sequence
+     */
+    private int parseDoubleQuoted(final String content) throws IOException {
+        int pos = 1;
+        while (pos < content.length()) {
+            final char ch = content.charAt(pos++);
+            if (ch == '"') {
+                return pos;
+            }
+            if (ch != '\\') {
+                this.keyBuilder.append(ch);
+            } else if (pos < content.length()) {
+                final char escape = content.charAt(pos++);
+                switch (escape) {
+                    case '0' -> this.keyBuilder.append('\0');
+                    case 'a' -> this.keyBuilder.append('\u0007');
+                    case 'b' -> this.keyBuilder.append('\b');
+                    case 't', '\t' -> this.keyBuilder.append('\t');
+                    case 'n' -> this.keyBuilder.append('\n');
+                    case 'v' -> this.keyBuilder.append('\u000B');
+                    case 'f' -> this.keyBuilder.append('\f');
+                    case 'r' -> this.keyBuilder.append('\r');
+                    case 'e' -> this.keyBuilder.append('\u001B');
+                    case ' ', '"', '/', '\\' -> this.keyBuilder.append(escape);
+                    case 'N' -> this.keyBuilder.append('\u0085');
+                    case '_' -> this.keyBuilder.append('\u00A0');
+                    case 'L' -> this.keyBuilder.append('\u2028');
+                    case 'P' -> this.keyBuilder.append('\u2029');
+                    case 'x' -> pos = appendCodePoint(content, pos, 2);
+                    case 'u' -> pos = appendCodePoint(content, pos, 4);
+                    case 'U' -> pos = appendCodePoint(content, pos, 8);
+                    default -> throw error("Invalid escape sequence \\" + escape);
+                }
+            }
+        }
+        throw error("Quoted keys must end on the same line");
+    }
+
+    /**
+     * Parses a single quoted key, in which a quote is escaped by doubling it.
+     *
+     * @param content Line starting with the key
+     * @return Index of the character following the closing quote.
+     * @throws IOException if the key is not terminated on the line
+     */
+    private int parseSingleQuoted(final String content) throws IOException {
+        int pos = 1;
+        while (pos < content.length()) {
+            final char ch = content.charAt(pos++);
+            if (ch == '\'') {
+                if (pos < content.length() && content.charAt(pos) == '\'') {
+                    pos++;
+                } else {
+                    return pos;
+                }
+            }
+            this.keyBuilder.append(ch);
+        }
+        throw error("Quoted keys must end on the same line");
+    }
+
+    /**
+     * Appends the character represented by a hexadecimal escape sequence to the key builder.
+     *
+     * @param content Line containing the escape sequence
+     * @param start Index of the first hexadecimal digit
+     * @param length Number of hexadecimal digits
+     * @return Index of the character following the escape sequence.
+     * @throws IOException if the escape sequence is invalid
+     */
+    private int appendCodePoint(final String content, final int start, final int length) throws IOException {
+        final int end = start + length;
+        try {
+            if (end > content.length()) {
+                throw new IllegalArgumentException();
+            }
+            this.keyBuilder.appendCodePoint(Integer.parseInt(content, start, end, 16));
+        } catch (final IllegalArgumentException ex) {
+            throw error("Invalid escape sequence");
+        }
+        return end;
+    }
+
+    /**
+     * Completes an entry whose value was empty on its line and was not followed by a nested mapping or sequence.
+     * Such an entry has a null value, so its key is reported.
+     */
+    private void endValue() {
+        if (this.pendingKey != null) {
+            this.keys.add(this.pendingKey);
+            this.pendingKey = null;
+        }
+        this.skipIndent = NONE;
+        this.sequenceIndent = NONE;
+    }
+
+    /**
+     * Determines whether the value of a mapping entry begins on the same line as its key. Anchors and tags alone do
+     * not constitute a value, because they may apply to a nested mapping.
+     *
+     * @param content Line without its indentation
+     * @param start Index of the first character after the colon
+     * @return {@code true} if the line contains a value.
+     */
+    private static boolean hasValue(final String content, final int start) {
+        int pos = start;
+        while (pos < content.length()) {
+            final char ch = content.charAt(pos);
+            if (ch == '#') {
+                return false;
+            }
+            if (ch == '&' || ch == '!') {
+                while (pos < content.length() && !isWhitespace(content.charAt(pos))) {
+                    pos++;
+                }
+            } else if (isWhitespace(ch)) {
+                pos++;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the character at the specified position is a colon separating a key from its value.
+     *
+     * @param content Line without its indentation
+     * @param pos Index of the character to test
+     * @return {@code true} if the character is a colon followed by whitespace or the end of the line.
+     */
+    private static boolean isSeparator(final String content, final int pos) {
+        return pos < content.length()
+                && content.charAt(pos) == ':'
+                && (pos + 1 == content.length() || isWhitespace(content.charAt(pos + 1)));
+    }
+
+    /**
+     * Determines whether a line is an entry of a block sequence.
+     *
+     * @param content Line without its indentation
+     * @return {@code true} if the line starts with a dash followed by whitespace or the end of the line.
+     */
+    private static boolean isSequenceEntry(final String content) {
+        return content.charAt(0) == '-' && (content.length() == 1 || isWhitespace(content.charAt(1)));
+    }
+
+    /**
+     * Determines whether a line is a document marker.
+     *
+     * @param content Line without its indentation
+     * @param marker Document start or end marker
+     * @return {@code true} if the line consists of the marker, optionally followed by whitespace or a comment.
+     */
+    private static boolean isMarker(final String content, final String marker) {
+        if (!content.startsWith(marker)) {
+            return false;
+        }
+        final String rest = content.substring(marker.length()).strip();
+        return rest.isEmpty() || (rest.charAt(0) == '#' && content.length() > marker.length()
+                && isWhitespace(content.charAt(marker.length())));
+    }
+
+    /**
+     * Determines whether the specified character is YAML whitespace.
+     *
+     * @param ch Character to test
+     * @return {@code true} if the character is a space or tab.
+     */
+    private static boolean isWhitespace(final char ch) {
+        return ch == ' ' || ch == '\t';
+    }
+
+    /**
+     * Creates an exception describing a problem at the current line.
+     *
+     * @param message Description of the problem
+     * @return Exception to throw.
+     */
+    private IOException error(final String message) {
+        return new IOException(message + " at " + this.file + ":" + this.lineNumber);
+    }
+}
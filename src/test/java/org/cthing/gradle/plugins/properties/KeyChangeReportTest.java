@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class KeyChangeReportTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testFirstReport() {
+        final KeyChangeReport report = new KeyChangeReport(this.tempDir.resolve("keys.state"));
+        report.add("b.properties", List.of("x"));
+        report.add("a.properties", List.of("k1", "k2"));
+        assertThat(report.getChanges()).containsExactly(
+                new KeyChangeReport.Change(KeyChangeReport.ADDED, "a.properties", "k1"),
+                new KeyChangeReport.Change(KeyChangeReport.ADDED, "a.properties", "k2"),
+                new KeyChangeReport.Change(KeyChangeReport.ADDED, "b.properties", "x"));
+    }
+
+    @Test
+    public void testChanges() throws IOException {
+        final Path stateFile = this.tempDir.resolve("state/keys.state");
+        final KeyChangeReport report1 = new KeyChangeReport(stateFile);
+        report1.add("messages.properties", List.of("a", "b", "c", "e"));
+        report1.add("removed.properties", List.of("r"));
+        report1.add("old/moved.properties", List.of("m1", "m2"));
+        report1.add("same.properties", List.of("s"));
+        report1.save();
+        assertThat(stateFile).isRegularFile();
+
+        final KeyChangeReport report2 = new KeyChangeReport(stateFile);
+        report2.add("messages.properties", List.of("a", "c", "d", "e", "f"));
+        report2.add("new/moved.properties", List.of("m1", "m2"));
+        report2.add("same.properties", List.of("s"));
+        assertThat(report2.getChanges()).containsExactly(
+                new KeyChangeReport.Change(KeyChangeReport.REMOVED, "messages.properties", "b"),
+                new KeyChangeReport.Change(KeyChangeReport.ADDED, "messages.properties", "d"),
+                new KeyChangeReport.Change(KeyChangeReport.ADDED, "messages.properties", "f"),
+                new KeyChangeReport.Change(KeyChangeReport.RENAMED, "old/moved.properties", "new/moved.properties"),
+                new KeyChangeReport.Change(KeyChangeReport.REMOVED, "removed.properties", "r"));
+        report2.save();
+
+        final KeyChangeReport report3 = new KeyChangeReport(stateFile);
+        report3.add("messages.properties", List.of("a", "c", "d", "e", "f"));
+        report3.add("new/moved.properties", List.of("m1", "m2"));
+        report3.add("same.properties", List.of("s"));
+        assertThat(report3.getChanges()).isEmpty();
+    }
+
+    @Test
+    public void testDamagedState() throws IOException {
+        final Path stateFile = this.tempDir.resolve("keys.state");
+        Files.write(stateFile, new byte[] { 0, 0, 0, 1, 0, 0 });
+
+        final KeyChangeReport report = new KeyChangeReport(stateFile);
+        report.add("messages.properties", List.of("a"));
+        assertThat(report.getChanges()).containsExactly(
+                new KeyChangeReport.Change(KeyChangeReport.ADDED, "messages.properties", "a"));
+    }
+
+    @Test
+    public void testWriteReport() {
+        final StringWriter stringWriter = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(stringWriter)) {
+            KeyChangeReport.writeReport(writer, List.of(
+                    new KeyChangeReport.Change(KeyChangeReport.ADDED, "messages.properties", "key\tone\nline\\"),
+                    new KeyChangeReport.Change(KeyChangeReport.RENAMED, "a.properties", "b.properties")));
+        }
+        assertThat(stringWriter).hasToString("+\tmessages.properties\tkey\\tone\\nline\\\\\n"
+                                             + "R\ta.properties\tb.properties\n");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+
+public class NativeImageMetadataTest {
+
+    public static Stream<Arguments> bundleNameProvider() {
+        return Stream.of(
+                arguments(List.of(), Set.of(), List.of()),
+                arguments(List.of("messages.properties"), Set.of(), List.of()),
+                arguments(List.of("messages.properties"), Set.of("messages"), List.of("messages")),
+                arguments(List.of("org/cthing/messages_fr.properties", "org/cthing/messages.properties"), Set.of(),
+                          List.of("org.cthing.messages")),
+                arguments(List.of("messages.properties", "messages_en.properties", "messages_en_US.properties",
+                                  "messages_zh_Hant_TW.properties", "messages_ja_JP_JP.properties",
+                                  "messages_en__POSIX.properties", "messages_es_419.properties"), Set.of(),
+                          List.of("messages")),
+                arguments(List.of("errors_de.properties"), Set.of(), List.of()),
+                arguments(List.of("errors_de.properties"), Set.of("errors"), List.of("errors")),
+                arguments(List.of("errors_de.properties"), Set.of("errors_de"), List.of("errors_de")),
+                arguments(List.of("app.properties", "app_settings.properties", "app_x.properties",
+                                  "app_EN.properties"), Set.of(), List.of()),
+                arguments(List.of("a.properties", "a_bc.properties", "ab.properties"), Set.of(), List.of("a")),
+                arguments(List.of("x.properties", "x_fr.properties", "x_fr_de.properties"), Set.of(), List.of("x")),
+                arguments(List.of("data.xml", "data_fr.properties", "data.properties"), Set.of(), List.of("data"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("bundleNameProvider")
+    public void testGetBundleNames(final List<String> resourcePaths, final Set<String> explicitBundles,
+                                   final List<String> bundleNames) {
+        assertThat(NativeImageMetadata.getBundleNames(resourcePaths, explicitBundles)).isEqualTo(bundleNames);
+    }
+
+    @Test
+    public void testGetDirectoryPath() {
+        final NativeImageMetadata metadata = new NativeImageMetadata("org.cthing.test.Constants");
+        assertThat(metadata.getDirectoryPath())
+                .isEqualTo("META-INF/native-image/property-key-constants/org.cthing.test.Constants");
+    }
+
+    @Test
+    public void testWriteResourceConfig() {
+        final NativeImageMetadata metadata = new NativeImageMetadata("org.cthing.test.Constants");
+        final StringWriter out = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(out)) {
+            metadata.writeResourceConfig(writer, List.of("org/cthing/prop2.properties", "prop1.properties",
+                                                         "prop1_fr.properties"), Set.of("org.cthing.prop2"));
+        }
+        assertThat(out.toString()).isEqualToNormalizingNewlines("""
+                {
+                  "resources": {
+                    "includes": [
+                      { "pattern": "\\\\Qorg/cthing/prop2.properties\\\\E" },
+                      { "pattern": "\\\\Qprop1.properties\\\\E" },
+                      { "pattern": "\\\\Qprop1_fr.properties\\\\E" }
+                    ]
+                  },
+                  "bundles": [
+                    { "name": "org.cthing.prop2" },
+                    { "name": "prop1" }
+                  ]
+                }
+                """);
+    }
+
+    @Test
+    public void testWriteReflectConfig() {
+        final NativeImageMetadata metadata = new NativeImageMetadata("org.cthing.test.Constants");
+        final StringWriter out = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(out)) {
+            metadata.writeReflectConfig(writer, List.of("org.cthing.test.Constants",
+                                                        "org.cthing.test.Constants$Prop1"));
+        }
+        assertThat(out.toString()).isEqualToNormalizingNewlines("""
+                [
+                  { "name": "org.cthing.test.Constants", "allDeclaredFields": true },
+                  { "name": "org.cthing.test.Constants$Prop1", "allDeclaredFields": true }
+                ]
+                """);
+    }
+}
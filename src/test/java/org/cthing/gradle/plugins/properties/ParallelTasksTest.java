@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+
+public class ParallelTasksTest {
+
+    private static final long TIMEOUT = 10;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testLatency() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            final Path file = this.tempDir.resolve("file" + i + ".properties");
+            Files.writeString(file, "key" + i + "=value\n");
+            files.add(file);
+        }
+
+        // Each read waits as if opening the file on a slow network mount, until as many reads as the concurrency
+        // are waiting. If fewer files were read at the same time, the reads would time out.
+        final CyclicBarrier barrier = new CyclicBarrier(8);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final List<PropertyKeys> keys = ParallelTasks.run(files, 8, file -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                await(barrier);
+                return PropertyKeys.read(file, Long.MAX_VALUE);
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+
+        assertThat(keys).extracting(PropertyKeys::keys)
+                        .containsExactlyElementsOf(IntStream.range(0, 16).mapToObj(i -> List.of("key" + i)).toList());
+        assertThat(maxActive.get()).isEqualTo(8);
+    }
+
+    @Test
+    public void testOrder() throws IOException {
+        // Later items complete first, because each action waits for the action on the next item to complete, but the
+        // results are in the order of the items.
+        final List<Integer> items = IntStream.range(0, 10).boxed().toList();
+        final List<CountDownLatch> completed = items.stream().map(item -> new CountDownLatch(1)).toList();
+        final List<Integer> completionOrder = Collections.synchronizedList(new ArrayList<>());
+        final List<String> results = ParallelTasks.run(items, 10, item -> {
+            if (item + 1 < items.size()) {
+                await(completed.get(item + 1));
+            }
+            completionOrder.add(item);
+            completed.get(item).countDown();
+            return "result" + item;
+        });
+        assertThat(completionOrder).containsExactly(9, 8, 7, 6, 5, 4, 3, 2, 1, 0);
+        assertThat(results).containsExactlyElementsOf(items.stream().map(item -> "result" + item).toList());
+    }
+
+    @Test
+    public void testSerial() throws IOException {
+        final Thread caller = Thread.currentThread();
+        final List<Boolean> results = ParallelTasks.run(List.of(1, 2, 3), 1, item -> Thread.currentThread() == caller);
+        assertThat(results).containsOnly(true);
+        assertThat(ParallelTasks.run(List.of(), 8, item -> item)).isEmpty();
+    }
+
+    @Test
+    public void testFailure() {
+        // The third item fails first, because the second item waits for it, but the failure of the second item is
+        // reported.
+        final CountDownLatch thirdFailed = new CountDownLatch(1);
+        assertThatIOException().isThrownBy(() -> ParallelTasks.run(List.of(1, 2, 3, 4), 4, item -> {
+            if (item == 2) {
+                await(thirdFailed);
+            } else if (item == 3) {
+                thirdFailed.countDown();
+            } else {
+                return item;
+            }
+            throw new IOException("Failed " + item);
+        })).withMessage("Failed 2");
+    }
+
+    private static void await(final CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(TIMEOUT, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out waiting for another action");
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+    }
+
+    private static void await(final CyclicBarrier barrier) throws IOException {
+        try {
+            barrier.await(TIMEOUT, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final BrokenBarrierException | TimeoutException ex) {
+            throw new IOException("Other actions did not reach the barrier", ex);
+        }
+    }
+}
@@ -32,14 +32,45 @@ public class PluginApplyTest {
                                                    PropertyKeyConstantsExtension.class, extension -> {
             assertThat(extension.getSourceAccess()).contains(SourceAccess.PUBLIC);
             assertThat(extension.getSourceLayout()).contains(SourceLayout.NESTED_CLASSES);
+            assertThat(extension.getSourceLanguage()).contains(SourceLanguage.JAVA);
+            assertThat(extension.getShardCount()).contains(1);
+            assertThat(extension.getClasses()).isEmpty();
+            assertThat(extension.getAnnotationProcessing()).contains(false);
+            assertThat(extension.getNativeImageMetadata()).contains(false);
+            assertThat(extension.getNativeImageBundles().get()).isEmpty();
+            assertThat(extension.getKeyIndex()).contains(false);
+            assertThat(extension.getKeyPoolClassname()).isEmpty();
+            assertThat(extension.getKeyPoolSource().isEmpty()).isTrue();
+            assertThat(extension.getGenerateKeyPool()).contains(false);
+            assertThat(extension.getKeyChangeReport()).contains(false);
+            assertThat(extension.getReadConcurrency()).contains(8);
+            assertThat(extension.getSkipEmptySourceSets()).contains(false);
+            assertThat(extension.getDiscoverPropertiesFiles()).contains(false);
+            assertThat(extension.getDiscoveryIncludes().get()).containsExactly("**/*.properties");
+            assertThat(extension.getDiscoveryExcludes().get()).isEmpty();
         });
 
         assertThat(project).hasTaskSatisfying("generatePropertyKeyConstants", PropertyKeyConstantsTask.class, task -> {
             assertThat(task.getClassname()).isEmpty();
             assertThat(task.getOutputDirectory()).getString()
                                                  .endsWith("build/generated-src/property-key-constants/main");
+            assertThat(task.getResourcesOutputDirectory()).getString()
+                                                          .endsWith("build/generated-resources/property-key-constants/main");
+            assertThat(task.getNativeImageMetadata()).contains(false);
+            assertThat(task.getNativeImageBundles().get()).isEmpty();
+            assertThat(task.getKeyIndex()).contains(false);
             assertThat(task.getSourceAccess()).contains(SourceAccess.PUBLIC);
             assertThat(task.getSourceLayout()).contains(SourceLayout.NESTED_CLASSES);
+            assertThat(task.getSourceLanguage()).contains(SourceLanguage.JAVA);
+            assertThat(task.getShardCount()).contains(1);
+            assertThat(task.getKeysService().isPresent()).isTrue();
+            assertThat(task.getKeyPoolClassname()).isEmpty();
+            assertThat(task.getKeyPoolSource().isEmpty()).isTrue();
+            assertThat(task.getGenerateKeyPool()).contains(false);
+            assertThat(task.getKeyChangeReportFile().isPresent()).isFalse();
+            assertThat(task.getKeyStateFile().get().getAsFile()).hasName("main-keys.state");
+            assertThat(task.getReadConcurrency()).contains(8);
+            assertThat(task.getClasses().get()).isEmpty();
         });
 
         assertThat(project).hasTaskWithType("generateTestPropertyKeyConstants", PropertyKeyConstantsTask.class);
@@ -62,7 +93,7 @@ public class PluginApplyTest {
     @ParameterizedTest
     @MethodSource("basenameProvider")
     public void testGetBasename(final String original, final String expected) {
-        assertThat(PropertyKeyConstantsTask.getBasename(new File(original))).isEqualTo(expected);
+        assertThat(ConstantsGenerator.getBasename(new File(original))).isEqualTo(expected);
     }
 
     public static Stream<Arguments> camelCaseProvider() {
@@ -87,7 +118,7 @@ public class PluginApplyTest {
     @ParameterizedTest
     @MethodSource("camelCaseProvider")
     public void testToCamelCase(final String original, final String expected) {
-        assertThat(PropertyKeyConstantsTask.toCamelCase(original)).isEqualTo(expected);
+        assertThat(ConstantsGenerator.toCamelCase(original)).isEqualTo(expected);
     }
 
     public static Stream<Arguments> upperCaseProvider() {
@@ -113,6 +144,6 @@ public class PluginApplyTest {
     @ParameterizedTest
     @MethodSource("upperCaseProvider")
     public void testToUpperCase(final String original, final String expected) {
-        assertThat(PropertyKeyConstantsTask.toUpperCase(original)).isEqualTo(expected);
+        assertThat(ConstantsGenerator.toUpperCase(original)).isEqualTo(expected);
     }
 }
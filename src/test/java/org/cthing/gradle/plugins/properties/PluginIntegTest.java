@@ -7,13 +7,23 @@ package org.cthing.gradle.plugins.properties;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.file.PathUtils;
@@ -28,6 +38,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.gradle.testkit.runner.TaskOutcome.SKIPPED;
 import static org.gradle.testkit.runner.TaskOutcome.SUCCESS;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
@@ -74,6 +85,85 @@ public class PluginIntegTest {
         verifyBuild(result, SKIPPED);
     }
 
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testSkipEmptySourceSets(final String gradleVersion) throws IOException {
+        copyProject("nested-classes-public");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+
+                propertyKeyConstants {
+                    skipEmptySourceSets = true
+                }
+                """, StandardOpenOption.APPEND);
+
+        final BuildResult result = createGradleRunner(gradleVersion).withArguments("build").build();
+        verifyBuild(result, SUCCESS);
+
+        // The test source set has no properties files, so its generation task is not part of the build.
+        assertThat(result.task(":generateTestPropertyKeyConstants")).isNull();
+        assertThat(this.projectDir.resolve("build/generated-src/property-key-constants/test")).doesNotExist();
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testDiscovery(final String gradleVersion) throws IOException {
+        copyProject("nested-classes-public");
+        final Path resources = this.projectDir.resolve("src/main/resources");
+        Files.createDirectories(resources.resolve("org/a"));
+        Files.createDirectories(resources.resolve("org/b"));
+        Files.createDirectories(resources.resolve("internal"));
+        Files.createDirectories(resources.resolve(".git"));
+        Files.move(this.projectDir.resolve("prop1.properties"), resources.resolve("org/a/prop1.properties"));
+        Files.move(this.projectDir.resolve("prop2.properties"), resources.resolve("org/b/prop2.properties"));
+        Files.writeString(resources.resolve("internal/internal.properties"), "internal.key=value\n");
+        Files.writeString(resources.resolve(".git/git.properties"), "git.key=value\n");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+                plugins {
+                    java
+                    id("org.cthing.property-key-constants")
+                }
+
+                propertyKeyConstants {
+                    discoverPropertiesFiles = true
+                    discoveryExcludes.add("internal/**")
+                }
+
+                tasks {
+                    generatePropertyKeyConstants {
+                        classname = "org.cthing.test.Constants"
+                    }
+                }
+                """);
+
+        // The discovered files are ordered by resource path, and neither the excluded file nor the file in a
+        // directory excluded by Gradle by default is discovered.
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testDiscoveryWithoutClassname(final String gradleVersion) throws IOException {
+        copyProject("nested-classes-public");
+        final Path testResources = this.projectDir.resolve("src/test/resources");
+        Files.createDirectories(testResources);
+        Files.writeString(testResources.resolve("test.properties"), "test.key=value\n");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+
+                propertyKeyConstants {
+                    discoverPropertiesFiles = true
+                }
+                """, StandardOpenOption.APPEND);
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+
+        // The test source set has properties files but no classname, so they are not discovered.
+        final BuildTask testTask = result.task(":generateTestPropertyKeyConstants");
+        assertThat(testTask).isNotNull();
+        assertThat(testTask.getOutcome()).as(result.getOutput()).isEqualTo(SKIPPED);
+    }
+
     @ParameterizedTest
     @MethodSource("gradleVersionProvider")
     public void testNestedClassesPublic(final String gradleVersion) throws IOException {
@@ -94,6 +184,10 @@ public class PluginIntegTest {
         assertThat(cls).isPublic().isStatic().isFinal();
         verifyConstant(cls, "ABC_DEF_17", "abc.def.17", SourceAccess.PUBLIC);
         verifyConstant(cls, "UVW_XYZ_18", "uvw.xyz.18", SourceAccess.PUBLIC);
+
+        // Without generated resources, resource processing does not depend on the generation task.
+        final BuildResult resourcesResult = createGradleRunner(gradleVersion).withArguments("processResources").build();
+        assertThat(resourcesResult.task(":generatePropertyKeyConstants")).as(resourcesResult.getOutput()).isNull();
     }
 
     @ParameterizedTest
@@ -190,6 +284,415 @@ public class PluginIntegTest {
         verifyConstant(cls, "UVW_XYZ_18", "uvw.xyz.18", SourceAccess.PACKAGE);
     }
 
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testPrefixTree(final String gradleVersion) throws IOException {
+        copyProject("prefix-tree");
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+
+        Class<?> cls = loadClass("org.cthing.test.Constants");
+        verifyConstant(cls, "APP_NAME", "app.name", SourceAccess.PUBLIC);
+        verifyConstant(cls, "DB", "db", SourceAccess.PUBLIC);
+        verifyConstant(cls, "KEY1", "key1", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.Constants$Db");
+        assertThat(cls).isPublic().isStatic().isFinal();
+        verifyConstant(cls, "URL", "db.url", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.Constants$Db$Pool");
+        assertThat(cls).isPublic().isStatic().isFinal();
+        verifyConstant(cls, "MAX_SIZE", "db.pool.max.size", SourceAccess.PUBLIC);
+        verifyConstant(cls, "MIN_SIZE", "db.pool.min.size", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.Constants$Error$_404");
+        verifyConstant(cls, "BODY", "error.404.body", SourceAccess.PUBLIC);
+        verifyConstant(cls, "TITLE", "error.404.title", SourceAccess.PUBLIC);
+
+        // A nested class named String would hide java.lang.String from the constants of the enclosing classes.
+        cls = loadClass("org.cthing.test.Constants$Validation");
+        verifyConstant(cls, "OTHER", "validation.other", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.Constants$Validation$String_");
+        verifyConstant(cls, "MAX", "validation.string.max", SourceAccess.PUBLIC);
+        verifyConstant(cls, "MIN", "validation.string.min", SourceAccess.PUBLIC);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyIndex(final String gradleVersion) throws Exception {
+        copyProject("key-index");
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+
+        // The key index resource is generated, so resource processing depends on the generation task.
+        final BuildResult resourcesResult = createGradleRunner(gradleVersion).withArguments("processResources").build();
+        assertThat(resourcesResult.task(":generatePropertyKeyConstants")).as(resourcesResult.getOutput()).isNotNull();
+
+        final Class<?> cls = loadClass("org.cthing.test.Constants$Prop2");
+        assertThat(cls.getMethod("keys").invoke(null)).isEqualTo(List.of("abc.def.17", "uvw.xyz.18"));
+        assertThat(cls.getMethod("contains", String.class).invoke(null, "uvw.xyz.18")).isEqualTo(true);
+        assertThat(cls.getMethod("contains", String.class).invoke(null, "key1")).isEqualTo(false);
+
+        // Validation reports the same differences for a sorted map, which is merged, and an unsorted map.
+        final Method validate = cls.getMethod("validate", Map.class, Consumer.class, Consumer.class);
+        final Properties properties = new Properties();
+        properties.setProperty("abc.def.17", "value");
+        properties.setProperty("extra", "value");
+        for (final Map<?, ?> map : List.of(properties, new TreeMap<>(properties))) {
+            final List<String> missing = new ArrayList<>();
+            final List<String> unknown = new ArrayList<>();
+            final Consumer<String> missingConsumer = missing::add;
+            final Consumer<String> unknownConsumer = unknown::add;
+            assertThat(validate.invoke(null, map, missingConsumer, unknownConsumer)).isEqualTo(false);
+            assertThat(missing).containsExactly("uvw.xyz.18");
+            assertThat(unknown).containsExactly("extra");
+        }
+        properties.remove("extra");
+        properties.setProperty("uvw.xyz.18", "value");
+        final Consumer<String> failConsumer = key -> fail("Unexpected key " + key);
+        assertThat(validate.invoke(null, properties, failConsumer, failConsumer)).isEqualTo(true);
+
+        // A map that is not in natural order is validated by lookups rather than merged. Keys that are not strings
+        // are unknown.
+        final Map<Object, String> unsorted = new TreeMap<>(Comparator.comparing(Object::toString).reversed());
+        unsorted.put("uvw.xyz.18", "value");
+        unsorted.put("aaa", "value");
+        unsorted.put("zzz", "value");
+        unsorted.put(17, "value");
+        final Map<Object, String> hashMap = new HashMap<>(unsorted);
+        for (final Map<?, ?> map : List.of(unsorted, hashMap)) {
+            final List<String> missing = new ArrayList<>();
+            final List<String> unknown = new ArrayList<>();
+            final Consumer<String> missingConsumer = missing::add;
+            final Consumer<String> unknownConsumer = unknown::add;
+            assertThat(validate.invoke(null, map, missingConsumer, unknownConsumer)).isEqualTo(false);
+            assertThat(missing).containsExactly("abc.def.17");
+            assertThat(unknown).containsExactlyInAnyOrder("17", "aaa", "zzz");
+        }
+
+        final Path index = this.projectDir.resolve("build/resources/main/META-INF/property-key-constants/"
+                                                           + "org.cthing.test.Constants.keys");
+        assertThat(index).usingCharset(StandardCharsets.UTF_8).hasContent("""
+                @prop1.properties
+                key1
+                key2
+                @prop2.properties
+                abc.def.17
+                uvw.xyz.18
+                """);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyIndexWithNul(final String gradleVersion) throws Exception {
+        copyProject("key-index");
+        Files.writeString(this.projectDir.resolve("prop1.properties"), """
+                a\\u0000b=first
+                a=second
+                key1=third
+                """);
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        final BuildTask genTask = result.task(":generatePropertyKeyConstants");
+        assertThat(genTask).isNotNull();
+        assertThat(genTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+
+        // A key containing NUL is not split, because the keys are separated by another character.
+        final Class<?> cls = loadClass("org.cthing.test.Constants$Prop1");
+        assertThat(cls.getMethod("keys").invoke(null)).isEqualTo(List.of("a", "a\0b", "key1"));
+        assertThat(cls.getMethod("contains", String.class).invoke(null, "a\0b")).isEqualTo(true);
+        assertThat(cls.getMethod("contains", String.class).invoke(null, "b")).isEqualTo(false);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKotlinSource(final String gradleVersion) throws IOException {
+        copyProject("kotlin-source");
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        final BuildTask genTask = result.task(":generatePropertyKeyConstants");
+        assertThat(genTask).isNotNull();
+        assertThat(genTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+        final BuildTask buildTask = result.task(":build");
+        assertThat(buildTask).isNotNull();
+        assertThat(buildTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+
+        // The generated object is compiled by the Kotlin plugin, and its key index functions are called from Kotlin
+        // and Java sources.
+        assertThat(this.projectDir.resolve("build/generated-src/property-key-constants/main/org/cthing/test/"
+                                                   + "Constants.kt")).isRegularFile();
+        assertThat(this.projectDir.resolve("build/classes/kotlin/main/org/cthing/test/Constants$Prop2.class"))
+                .isRegularFile();
+        assertThat(this.projectDir.resolve("build/classes/kotlin/main/org/cthing/test/KotlinUsage.class"))
+                .isRegularFile();
+        assertThat(this.projectDir.resolve("build/classes/java/main/org/cthing/test/JavaUsage.class"))
+                .isRegularFile();
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKotlinSourceWithoutPlugin(final String gradleVersion) throws IOException {
+        copyProject("nested-classes-public");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+
+                propertyKeyConstants {
+                    sourceLanguage = org.cthing.gradle.plugins.properties.SourceLanguage.KOTLIN
+                }
+                """, StandardOpenOption.APPEND);
+
+        final BuildResult result = createGradleRunner(gradleVersion).buildAndFail();
+        assertThat(result.getOutput()).contains("Task :generatePropertyKeyConstants generates Kotlin source, which "
+                                                        + "requires the org.jetbrains.kotlin.jvm plugin to be applied");
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyFormats(final String gradleVersion) throws IOException {
+        copyProject("key-formats");
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyPool(final String gradleVersion) throws IOException, ReflectiveOperationException {
+        copyProject("key-pool");
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+
+        Class<?> cls = loadClass("org.cthing.test.Constants$Prop1");
+        verifyConstant(cls, "KEY1", "key1", SourceAccess.PUBLIC);
+        verifyConstant(cls, "KEY2", "key2", SourceAccess.PUBLIC);
+
+        final Class<?> poolCls = loadClass("org.cthing.test.KeyPool$Prop2");
+        verifyConstant(poolCls, "ABC_DEF_17", "abc.def.17", SourceAccess.PUBLIC);
+        verifyConstant(poolCls, "UVW_XYZ_18", "uvw.xyz.18", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.Constants$Prop2");
+        assertThat(cls).isPublic().isStatic().isFinal();
+        assertThat(cls.getDeclaredFields()).isEmpty();
+        assertThat(cls.getSuperclass().getName()).isEqualTo(poolCls.getName());
+        assertThat(cls.getField("ABC_DEF_17").get(null)).isEqualTo("abc.def.17");
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyPoolPackage(final String gradleVersion) throws IOException, ReflectiveOperationException {
+        copyProject("key-pool");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+
+                propertyKeyConstants {
+                    sourceAccess = org.cthing.gradle.plugins.properties.SourceAccess.PACKAGE
+                }
+                """, StandardOpenOption.APPEND);
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        verifyBuild(result, SUCCESS);
+
+        final Class<?> poolCls = loadClass("org.cthing.test.KeyPool$Prop2");
+        assertThat(poolCls).isNotPublic();
+        assertThat(poolCls.getEnclosingClass()).isNotPublic();
+        verifyConstant(poolCls, "ABC_DEF_17", "abc.def.17", SourceAccess.PACKAGE);
+
+        final Class<?> cls = loadClass("org.cthing.test.Constants$Prop2");
+        assertThat(cls).isNotPublic();
+        assertThat(cls.getSuperclass().getName()).isEqualTo(poolCls.getName());
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyPoolPackageOtherPackage(final String gradleVersion) throws IOException {
+        copyProject("key-pool");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+
+                propertyKeyConstants {
+                    sourceAccess = org.cthing.gradle.plugins.properties.SourceAccess.PACKAGE
+                }
+
+                tasks.generatePropertyKeyConstants {
+                    classname = "org.cthing.other.Constants"
+                }
+                """, StandardOpenOption.APPEND);
+
+        final BuildResult result = createGradleRunner(gradleVersion).buildAndFail();
+        assertThat(result.getOutput()).contains("Constants class org.cthing.other.Constants cannot use the package "
+                                                        + "private key pool org.cthing.test.KeyPool");
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyPoolOnly(final String gradleVersion) throws IOException, ReflectiveOperationException {
+        copyProject("key-pool");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+                plugins {
+                    java
+                    id("org.cthing.property-key-constants")
+                }
+
+                propertyKeyConstants {
+                    keyPoolClassname = "org.cthing.test.KeyPool"
+                    keyPoolSource.from(file("prop2.properties"))
+                    generateKeyPool = true
+                }
+                """);
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        final BuildTask genTask = result.task(":generatePropertyKeyConstants");
+        assertThat(genTask).isNotNull();
+        assertThat(genTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+        verifyConstant(loadClass("org.cthing.test.KeyPool$Prop2"), "ABC_DEF_17", "abc.def.17", SourceAccess.PUBLIC);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testKeyPoolWithoutSource(final String gradleVersion) throws IOException {
+        copyProject("key-pool");
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+                plugins {
+                    java
+                    id("org.cthing.property-key-constants")
+                }
+
+                propertyKeyConstants {
+                    keyPoolClassname = "org.cthing.test.KeyPool"
+                    generateKeyPool = true
+                }
+                """);
+
+        final BuildResult result = createGradleRunner(gradleVersion).buildAndFail();
+        assertThat(result.getOutput()).contains("Key pool org.cthing.test.KeyPool has no properties files in "
+                                                        + ":generatePropertyKeyConstants");
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testShardCount(final String gradleVersion) throws IOException {
+        copyProject("sharded");
+
+        final BuildResult result = createGradleRunner(gradleVersion).build();
+        final BuildTask genTask = result.task(":generatePropertyKeyConstants");
+        assertThat(genTask).isNotNull();
+        assertThat(genTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+
+        final Path sourceDir = this.projectDir.resolve("build/generated-src/property-key-constants/main/org/cthing/test");
+        assertThat(sourceDir.resolve("Constants.java")).doesNotExist();
+        for (final String shard : List.of("ConstantsShard0.java", "ConstantsShard1.java")) {
+            assertThat(sourceDir.resolve(shard)).hasSameTextualContentAs(this.projectDir.resolve(shard),
+                                                                         StandardCharsets.UTF_8);
+        }
+
+        Class<?> cls = loadClass("org.cthing.test.ConstantsShard1$Prop1");
+        verifyConstant(cls, "KEY1", "key1", SourceAccess.PUBLIC);
+        verifyConstant(cls, "KEY2", "key2", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.ConstantsShard0$Prop2");
+        verifyConstant(cls, "ABC_DEF_17", "abc.def.17", SourceAccess.PUBLIC);
+        verifyConstant(cls, "UVW_XYZ_18", "uvw.xyz.18", SourceAccess.PUBLIC);
+
+        // Adding properties files does not move the existing files to other shards.
+        for (int i = 3; i <= 8; i++) {
+            Files.writeString(this.projectDir.resolve("prop" + i + ".properties"), "key" + i + "=value\n");
+        }
+        Files.writeString(this.projectDir.resolve("build.gradle.kts"), """
+
+                tasks.generatePropertyKeyConstants {
+                    source((3..8).map { file("prop$it.properties") })
+                }
+                """, StandardOpenOption.APPEND);
+        final BuildResult result2 = createGradleRunner(gradleVersion).build();
+        final BuildTask genTask2 = result2.task(":generatePropertyKeyConstants");
+        assertThat(genTask2).isNotNull();
+        assertThat(genTask2.getOutcome()).as(result2.getOutput()).isEqualTo(SUCCESS);
+        verifyConstant(loadClass("org.cthing.test.ConstantsShard1$Prop1"), "KEY1", "key1", SourceAccess.PUBLIC);
+        verifyConstant(loadClass("org.cthing.test.ConstantsShard0$Prop2"), "ABC_DEF_17", "abc.def.17",
+                       SourceAccess.PUBLIC);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testMultipleClasses(final String gradleVersion) throws IOException {
+        copyProject("multiple-classes");
+
+        final BuildResult result = createGradleRunner(gradleVersion).withArguments("build", "--info").build();
+        final BuildTask genTask = result.task(":generatePropertyKeyConstants");
+        assertThat(genTask).isNotNull();
+        assertThat(genTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+
+        // The properties file shared by both classes is only read once.
+        assertThat(Pattern.compile("Processing properties file .*prop2\\.properties")
+                          .matcher(result.getOutput())
+                          .results()
+                          .count()).isEqualTo(1);
+
+        Class<?> cls = loadClass("org.cthing.test.ApiConstants$Prop1");
+        assertThat(cls).isPublic().isStatic().isFinal();
+        verifyConstant(cls, "KEY1", "key1", SourceAccess.PUBLIC);
+        verifyConstant(cls, "KEY2", "key2", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.ApiConstants$Prop2");
+        assertThat(cls).isPublic().isStatic().isFinal();
+        verifyConstant(cls, "ABC_DEF_17", "abc.def.17", SourceAccess.PUBLIC);
+        verifyConstant(cls, "UVW_XYZ_18", "uvw.xyz.18", SourceAccess.PUBLIC);
+
+        cls = loadClass("org.cthing.test.InternalConstants");
+        assertThat(cls).isPackagePrivate().isFinal();
+        verifyConstant(cls, "PROP2_ABC_DEF_17", "abc.def.17", SourceAccess.PACKAGE);
+        verifyConstant(cls, "PROP2_UVW_XYZ_18", "uvw.xyz.18", SourceAccess.PACKAGE);
+
+        // The next build in the same daemon reuses the keys of the properties file that did not change.
+        Files.writeString(this.projectDir.resolve("prop1.properties"), "key3=value\n", StandardOpenOption.APPEND);
+        final BuildResult result2 = createGradleRunner(gradleVersion).withArguments("build", "--info").build();
+        final BuildTask genTask2 = result2.task(":generatePropertyKeyConstants");
+        assertThat(genTask2).isNotNull();
+        assertThat(genTask2.getOutcome()).as(result2.getOutput()).isEqualTo(SUCCESS);
+        assertThat(result2.getOutput())
+                .containsPattern("Using the cached keys of properties file .*prop2\\.properties")
+                .containsPattern("Processing properties file .*prop1\\.properties");
+        verifyConstant(loadClass("org.cthing.test.ApiConstants$Prop1"), "KEY3", "key3", SourceAccess.PUBLIC);
+    }
+
+    @ParameterizedTest
+    @MethodSource("gradleVersionProvider")
+    public void testAnnotationProcessor(final String gradleVersion) throws IOException {
+        copyProject("annotation-processor");
+
+        final BuildResult result = createGradleRunner(gradleVersion).withArguments("build").build();
+        assertThat(result.task(":generatePropertyKeyConstants")).as(result.getOutput()).isNull();
+
+        final BuildTask compileTask = result.task(":compileJava");
+        assertThat(compileTask).isNotNull();
+        assertThat(compileTask.getOutcome()).as(result.getOutput()).isEqualTo(SUCCESS);
+
+        final Path inputsFile = this.projectDir.resolve("build/tmp/property-key-constants/main-processor-inputs/"
+                                                                + "org.cthing.test.Constants.inputs");
+        assertThat(inputsFile).hasContent("prop1.properties\nprop2.properties");
+
+        final Path actualSource = this.projectDir.resolve("build/generated/sources/annotationProcessor/java/main/"
+                                                                  + "org/cthing/test/Constants.java");
+        assertThat(actualSource).isRegularFile();
+        final URL expectedUrl = getClass().getResource("/nested-classes-public/Constants.java");
+        assertThat(expectedUrl).isNotNull();
+        assertThat(actualSource).hasSameTextualContentAs(Path.of(expectedUrl.getPath()), StandardCharsets.UTF_8);
+
+        final Class<?> cls = loadClass("org.cthing.test.Constants$Prop1");
+        assertThat(cls).isPublic().isStatic().isFinal();
+        verifyConstant(cls, "KEY1", "key1", SourceAccess.PUBLIC);
+        verifyConstant(cls, "KEY2", "key2", SourceAccess.PUBLIC);
+
+        // Changing a properties file read by the processor recompiles the source set.
+        Files.writeString(this.projectDir.resolve("prop1.properties"), "key3=value\n", StandardOpenOption.APPEND);
+        final BuildResult result2 = createGradleRunner(gradleVersion).withArguments("build").build();
+        final BuildTask compileTask2 = result2.task(":compileJava");
+        assertThat(compileTask2).isNotNull();
+        assertThat(compileTask2.getOutcome()).as(result2.getOutput()).isEqualTo(SUCCESS);
+        assertThat(actualSource).content(StandardCharsets.UTF_8).contains("String KEY3 = \"key3\";");
+    }
+
     private void copyProject(final String projectName) throws IOException {
         final URL projectUrl = getClass().getResource("/" + projectName);
         assertThat(projectUrl).isNotNull();
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Measures the plugin against a synthetic multi-project build. The generation scenarios only measure the time taken
+ * by the actions of the generation tasks, so the startup and configuration of the build, which dominate the wall
+ * clock time of a small build run through TestKit, do not mask changes in the plugin's own work. The configuration
+ * of the build is measured separately, as the wall clock time of a dry run without the configuration cache, and is
+ * compared with that of a reference build having the same layout without the plugin. Each scenario is run
+ * repeatedly in a warm daemon and the median is recorded. The size of the synthetic build and the number of
+ * iterations are controlled by the {@code perf.projects}, {@code perf.files}, {@code perf.keys},
+ * {@code perf.warmups} and {@code perf.iterations} system properties.
+ *
+ * <p>The ratios between scenarios measured in the same run do not depend on the machine, so maximum ratios are
+ * stored in {@value #THRESHOLDS_RESOURCE} and checked whenever the build size matches the size recorded with them.
+ * Absolute times depend on the machine, so no baselines are stored with the source. To detect a regression, record
+ * baselines on a machine by setting the {@code perf.baselines} system property to a file outside the build directory
+ * and {@code perf.updateBaselines} to {@code true}, then run again on the same machine with only
+ * {@code perf.baselines} set. Baselines are only compared when the build size matches the size recorded with the
+ * baselines. Run using the {@code perfTest} task.</p>
+ */
+@Tag("performance")
+public class PluginPerfTest {
+    private static final Path BASE_DIR = Path.of(System.getProperty("buildDir"), "perfTest");
+    private static final Path RESULTS_FILE = Path.of(System.getProperty("buildDir"), "reports/perf/results.properties");
+    private static final String BASELINES_FILE = System.getProperty("perf.baselines", "");
+    private static final Path WORKING_DIR = Path.of(System.getProperty("projectDir"), "testkit");
+    private static final String GENERATE_TASK = "generatePropertyKeyConstants";
+    private static final String THRESHOLDS_RESOURCE = "/perf/thresholds.properties";
+
+    private final int numProjects = Integer.getInteger("perf.projects", 20);
+    private final int numFiles = Integer.getInteger("perf.files", 10);
+    private final int numKeys = Integer.getInteger("perf.keys", 200);
+    private final int warmups = Integer.getInteger("perf.warmups", 2);
+    private final int iterations = Integer.getInteger("perf.iterations", 5);
+    private final Map<String, Long> results = new TreeMap<>();
+
+    @Test
+    public void testScenarios() throws IOException {
+        Files.createDirectories(BASE_DIR);
+        final Path projectDir = Files.createTempDirectory(BASE_DIR, "synthetic");
+        final SyntheticProject project = new SyntheticProject(projectDir, this.numProjects, this.numFiles,
+                                                              this.numKeys);
+        project.generate();
+        final Path referenceDir = Files.createTempDirectory(BASE_DIR, "reference");
+        new SyntheticProject(referenceDir, this.numProjects, this.numFiles, this.numKeys).generateReference();
+
+        final GradleRunner runner = createRunner(projectDir);
+        final GradleRunner referenceRunner = createRunner(referenceDir);
+
+        // Generation from scratch in every subproject.
+        measure("cleanBuild", () -> taskTime(runner, project, "clean", GENERATE_TASK));
+
+        // Nothing changed, so no generation task may run.
+        final BuildResult noOpResult = runner.withArguments(GENERATE_TASK).build();
+        assertThat(noOpResult.tasks(TaskOutcome.SUCCESS)).as("tasks run by a no-op build").isEmpty();
+        project.collectTaskTime();
+
+        // Only property values in a single file change. Must run before the key change scenario so that the
+        // file is rewritten with the original set of keys.
+        final int[] count = { 0 };
+        measure("valueChange", () -> {
+            project.changeValues(count[0]++);
+            return taskTime(runner, project, GENERATE_TASK);
+        });
+
+        // A key is added to a single file.
+        measure("keyChange", () -> {
+            project.addKey(count[0]++);
+            return taskTime(runner, project, GENERATE_TASK);
+        });
+
+        // Configuration of the build, with and without the plugin.
+        measureConfiguration(runner, referenceRunner);
+
+        writeResults();
+        compareThresholds();
+        compareBaselines();
+    }
+
+    private static GradleRunner createRunner(final Path projectDir) {
+        return GradleRunner.create()
+                           .withProjectDir(projectDir.toFile())
+                           .withTestKitDir(WORKING_DIR.toFile())
+                           .withPluginClasspath();
+    }
+
+    private void measure(final String scenario, final Sample sample) throws IOException {
+        final long[] times = new long[this.iterations];
+        for (int i = -this.warmups; i < this.iterations; i++) {
+            final long elapsed = sample.take();
+            if (i >= 0) {
+                times[i] = elapsed;
+            }
+        }
+
+        this.results.put(scenario, median(times));
+    }
+
+    private void measureConfiguration(final GradleRunner runner, final GradleRunner referenceRunner) {
+        // The builds are run alternately, so that the warming of the daemon affects both builds alike.
+        final long[] times = new long[this.iterations];
+        final long[] referenceTimes = new long[this.iterations];
+        for (int i = -this.warmups; i < this.iterations; i++) {
+            final long elapsed = configurationTime(runner);
+            final long referenceElapsed = configurationTime(referenceRunner);
+            if (i >= 0) {
+                times[i] = elapsed;
+                referenceTimes[i] = referenceElapsed;
+            }
+        }
+
+        this.results.put("configuration", median(times));
+        this.results.put("configurationReference", median(referenceTimes));
+    }
+
+    private static long median(final long[] times) {
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    private static long taskTime(final GradleRunner runner, final SyntheticProject project,
+                                 final String... arguments) throws IOException {
+        runner.withArguments(arguments).build();
+        return project.collectTaskTime() / 1_000;
+    }
+
+    private static long configurationTime(final GradleRunner runner) {
+        // A dry run configures every project and the tasks needed by compilation, including the generation tasks,
+        // without running them. The configuration cache is disabled so that every run configures the build.
+        final long start = System.nanoTime();
+        runner.withArguments("compileJava", "--dry-run", "--no-configuration-cache").build();
+        return (System.nanoTime() - start) / 1_000;
+    }
+
+    private void writeResults() throws IOException {
+        final Properties properties = sizeProperties();
+        this.results.forEach((scenario, time) -> properties.setProperty(scenario, Long.toString(time)));
+
+        Files.createDirectories(RESULTS_FILE.getParent());
+        try (OutputStream out = Files.newOutputStream(RESULTS_FILE)) {
+            properties.store(out, "Median times in microseconds");
+        }
+
+        if (Boolean.getBoolean("perf.updateBaselines") && !BASELINES_FILE.isEmpty()) {
+            final Path baselinesFile = Path.of(BASELINES_FILE).toAbsolutePath();
+            Files.createDirectories(baselinesFile.getParent());
+            try (OutputStream out = Files.newOutputStream(baselinesFile)) {
+                properties.store(out, "Median times in microseconds");
+            }
+        }
+    }
+
+    private void compareBaselines() throws IOException {
+        if (BASELINES_FILE.isEmpty() || Boolean.getBoolean("perf.updateBaselines")
+                || !Files.isRegularFile(Path.of(BASELINES_FILE))) {
+            return;
+        }
+
+        final Properties baselines = new Properties();
+        try (InputStream in = Files.newInputStream(Path.of(BASELINES_FILE))) {
+            baselines.load(in);
+        }
+
+        // Baselines only apply to a build of the same size.
+        if (!matchesSize(baselines)) {
+            return;
+        }
+
+        final double tolerance = Double.parseDouble(System.getProperty("perf.tolerance", "0.25"));
+        this.results.forEach((scenario, time) -> {
+            final String baseline = baselines.getProperty(scenario);
+            if (baseline != null) {
+                final long limit = Math.round(Long.parseLong(baseline) * (1.0 + tolerance));
+                assertThat(time).as("%s regressed (baseline %s us)", scenario, baseline).isLessThanOrEqualTo(limit);
+            }
+        });
+    }
+
+    private void compareThresholds() throws IOException {
+        final Properties thresholds = new Properties();
+        try (InputStream in = getClass().getResourceAsStream(THRESHOLDS_RESOURCE)) {
+            assertThat(in).as(THRESHOLDS_RESOURCE).isNotNull();
+            thresholds.load(in);
+        }
+
+        // The ratios are calibrated for a build of the recorded size.
+        if (!matchesSize(thresholds)) {
+            return;
+        }
+
+        // Each threshold is named by a scenario and the scenario it is relative to, separated by a period.
+        for (final String name : thresholds.stringPropertyNames()) {
+            final int separator = name.indexOf('.');
+            if (separator < 0) {
+                continue;
+            }
+            final String scenario = name.substring(0, separator);
+            final String reference = name.substring(separator + 1);
+            assertThat(this.results).as(name).containsKeys(scenario, reference);
+
+            final long time = this.results.get(scenario);
+            final long referenceTime = this.results.get(reference);
+            final double maxRatio = Double.parseDouble(thresholds.getProperty(name));
+            assertThat((double) time).as("%s relative to %s (%d us, %d us)", scenario, reference, time, referenceTime)
+                                     .isLessThanOrEqualTo(referenceTime * maxRatio);
+        }
+    }
+
+    private boolean matchesSize(final Properties properties) {
+        final Properties size = sizeProperties();
+        for (final String name : size.stringPropertyNames()) {
+            if (!size.getProperty(name).equals(properties.getProperty(name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Properties sizeProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty("projects", Integer.toString(this.numProjects));
+        properties.setProperty("files", Integer.toString(this.numFiles));
+        properties.setProperty("keys", Integer.toString(this.numKeys));
+        return properties;
+    }
+
+    @FunctionalInterface
+    private interface Sample {
+        long take() throws IOException;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+
+public class PropertiesKeyScannerTest {
+
+    @TempDir
+    private Path tempDir;
+
+    public static Stream<Arguments> contentProvider() {
+        return Stream.of(
+                arguments(""),
+                arguments("key1=value1\nkey2=value2\n"),
+                arguments("key1=value1\r\nkey2=value2\r\n"),
+                arguments("key1=value1\rkey2=value2"),
+                arguments("key1:value1\nkey2 value2\nkey3\t=value3\nkey4\fvalue4"),
+                arguments("   key1 = value1\n\t\tkey2=value2"),
+                arguments("# comment\n! comment\nkey1=value1\n  # indented comment\n"),
+                arguments("# comment \\\nkey1=value1"),
+                arguments("key1=value1 \\\n    continued\nkey2=value2"),
+                arguments("key1=value1 \\\r\n    continued \\\r    more\nkey2=value2"),
+                arguments("long\\\n   key=value"),
+                arguments("key\\ with\\ spaces=value\nkey\\=equals=value\nkey\\:colon=value"),
+                arguments("tab\\tkey=value\nnew\\nline=value\n\\u0041\\u00e9=value"),
+                arguments("été=summer\ncafé=coffee"),
+                arguments("duplicate=one\nduplicate=two"),
+                arguments("onlykey\nemptyvalue=\n=emptykey"),
+                arguments("value=has \\u0041 escape\nvalue2=ends with backslash\\"),
+                arguments("key=value\\\n\nnext=value"),
+                arguments("\\\n# comment\nkey=value"),
+                arguments("\\\n"),
+                arguments("\\\r\n"),
+                arguments("key=\\u00\\\n   41 split escape"),
+                arguments("b=1\na=2\nc=3\nA=4")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("contentProvider")
+    public void testReadKeys(final String content) throws IOException {
+        final Path file = writeFile(content);
+        final List<String> expected = loadKeys(file);
+
+        assertThat(PropertiesKeyScanner.readKeys(file)).isEqualTo(expected);
+
+        // Exercise remapping by using windows smaller than the lookahead.
+        assertThat(PropertiesKeyScanner.readKeys(file, 1)).isEqualTo(expected);
+        assertThat(PropertiesKeyScanner.readKeys(file, 3)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testMalformedUnicode() throws IOException {
+        final Path keyFile = writeFile("key\\u00g1=value");
+        assertThatIllegalArgumentException().isThrownBy(() -> PropertiesKeyScanner.readKeys(keyFile));
+
+        final Path valueFile = writeFile("key=val\\u12");
+        assertThatIllegalArgumentException().isThrownBy(() -> PropertiesKeyScanner.readKeys(valueFile));
+    }
+
+    private Path writeFile(final String content) throws IOException {
+        final Path file = Files.createTempFile(this.tempDir, "scan", ".properties");
+        Files.writeString(file, content, StandardCharsets.ISO_8859_1);
+        return file;
+    }
+
+    private static List<String> loadKeys(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties.stringPropertyNames().stream().sorted().toList();
+    }
+}
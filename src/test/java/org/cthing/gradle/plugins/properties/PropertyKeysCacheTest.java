@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class PropertyKeysCacheTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testRead() throws IOException {
+        final Path file = this.tempDir.resolve("messages.properties");
+        Files.writeString(file, "b=2\na=1\n");
+
+        final PropertyKeysCache cache = new PropertyKeysCache(100);
+        final PropertyKeys keys = cache.read(file, Long.MAX_VALUE);
+        assertThat(keys).isEqualTo(new PropertyKeys("messages.properties", List.of("a", "b")));
+        assertThat(cache.read(this.tempDir.resolve("other/../messages.properties"), Long.MAX_VALUE)).isSameAs(keys);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testContentChange() throws IOException {
+        final Path file = this.tempDir.resolve("messages.properties");
+        Files.writeString(file, "a=1\n");
+
+        final PropertyKeysCache cache = new PropertyKeysCache(100);
+        final PropertyKeys keys1 = cache.read(file, Long.MAX_VALUE);
+
+        // A change to a value replaces the entry even though the keys are the same.
+        Files.writeString(file, "a=2\n");
+        final PropertyKeys keys2 = cache.read(file, Long.MAX_VALUE);
+        assertThat(keys2).isNotSameAs(keys1).isEqualTo(keys1);
+
+        Files.writeString(file, "a=2\nc=3\n");
+        assertThat(cache.read(file, Long.MAX_VALUE).keys()).containsExactly("a", "c");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStamp() throws IOException {
+        final Path file = this.tempDir.resolve("messages.properties");
+        final FileTime modified = FileTime.from(Instant.parse("2024-01-01T00:00:00Z"));
+        Files.writeString(file, "a=1\n");
+        Files.setLastModifiedTime(file, modified);
+
+        final PropertyKeysCache cache = new PropertyKeysCache(100);
+        final PropertyKeys keys = cache.read(file, Long.MAX_VALUE);
+        assertThat(cache.get(file)).isSameAs(keys);
+
+        // A file whose modification time identifies its content is not hashed, so a change that preserves the size
+        // and modification time is not detected.
+        Files.writeString(file, "b=1\n");
+        Files.setLastModifiedTime(file, modified);
+        assertThat(cache.get(file)).isSameAs(keys);
+
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2024-01-02T00:00:00Z")));
+        assertThat(cache.get(file)).isNull();
+        assertThat(cache.read(file, Long.MAX_VALUE).keys()).containsExactly("b");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        final Path file1 = this.tempDir.resolve("file1.properties");
+        final Path file2 = this.tempDir.resolve("file2.properties");
+        final Path file3 = this.tempDir.resolve("file3.properties");
+        Files.writeString(file1, "a=1\nb=2\n");
+        Files.writeString(file2, "c=3\nd=4\n");
+        Files.writeString(file3, "e=5\nf=6\ng=7\n");
+
+        final long entryBytes = PropertyKeysCache.estimateBytes(new PropertyKeys("file1.properties",
+                                                                                 List.of("a", "b")));
+        final PropertyKeysCache cache = new PropertyKeysCache(2 * entryBytes);
+        final PropertyKeys keys1 = cache.read(file1, Long.MAX_VALUE);
+        final PropertyKeys keys2 = cache.read(file2, Long.MAX_VALUE);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEstimatedBytes()).isEqualTo(2 * entryBytes);
+
+        // Reading the first file again makes the second file the least recently used.
+        assertThat(cache.read(file1, Long.MAX_VALUE)).isSameAs(keys1);
+        final PropertyKeys keys3 = cache.read(file3, Long.MAX_VALUE);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEstimatedBytes()).isEqualTo(PropertyKeysCache.estimateBytes(keys3));
+        assertThat(cache.read(file2, Long.MAX_VALUE)).isNotSameAs(keys2);
+
+        // An entry larger than the maximum is retained while it is the most recently used.
+        assertThat(new PropertyKeysCache(1).read(file3, Long.MAX_VALUE).keys()).hasSize(3);
+    }
+
+    @Test
+    public void testFragmentEviction() throws IOException {
+        final Path file1 = this.tempDir.resolve("file1.properties");
+        final Path file2 = this.tempDir.resolve("file2.properties");
+        Files.writeString(file1, "a=1\n");
+        Files.writeString(file2, "b=2\n");
+
+        final String fragment = "x".repeat(1000);
+        final long entryBytes = PropertyKeysCache.estimateBytes(new PropertyKeys("file1.properties", List.of("a")));
+        final long fragmentBytes = PropertyKeysCache.estimateBytes("v1") + PropertyKeysCache.estimateBytes(fragment);
+        final PropertyKeysCache cache = new PropertyKeysCache(2 * entryBytes + fragmentBytes - 1);
+        final PropertyKeys keys1 = cache.read(file1, Long.MAX_VALUE);
+        final PropertyKeys keys2 = cache.read(file2, Long.MAX_VALUE);
+
+        // Generating source for the first file makes it the most recently used, and its size counts toward the
+        // maximum, so the second file is evicted.
+        assertThat(cache.getFragment(keys1, "v1", () -> fragment)).isEqualTo(fragment);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEstimatedBytes()).isEqualTo(entryBytes + fragmentBytes);
+        assertThat(cache.getFragment(keys1, "v1", () -> "other")).isEqualTo(fragment);
+        assertThat(cache.getFragment(keys2, "v1", () -> "uncached")).isEqualTo("uncached");
+
+        // Reading the second file again evicts the first file, together with its source.
+        assertThat(cache.read(file2, Long.MAX_VALUE)).isNotSameAs(keys2);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEstimatedBytes()).isEqualTo(entryBytes);
+        assertThat(cache.getFragment(keys1, "v1", () -> "other")).isEqualTo("other");
+    }
+
+    @Test
+    public void testFragments() throws IOException {
+        final Path file = this.tempDir.resolve("messages.properties");
+        Files.writeString(file, "a=1\n");
+
+        final PropertyKeysCache cache = new PropertyKeysCache(100);
+        final PropertyKeys keys = cache.read(file, Long.MAX_VALUE);
+        assertThat(cache.getFragment(keys, "v1", () -> "fragment1")).isEqualTo("fragment1");
+        assertThat(cache.getFragment(keys, "v1", () -> "other")).isEqualTo("fragment1");
+        assertThat(cache.getFragment(keys, "v2", () -> "fragment2")).isEqualTo("fragment2");
+
+        // Keys that were not read through the cache are always rendered.
+        final PropertyKeys uncached = new PropertyKeys("messages.properties", List.of("a"));
+        assertThat(cache.getFragment(uncached, "v1", () -> "uncached")).isEqualTo("uncached");
+
+        // Fragments are discarded with the keys when the file changes.
+        Files.writeString(file, "a=2\n");
+        final PropertyKeys changed = cache.read(file, Long.MAX_VALUE);
+        assertThat(cache.getFragment(changed, "v1", () -> "fragment3")).isEqualTo("fragment3");
+    }
+}
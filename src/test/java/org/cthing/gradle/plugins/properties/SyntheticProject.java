@@ -0,0 +1,206 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Generates a synthetic multi-project build for exercising the plugin at scale. Each subproject applies the
+ * plugin and generates constants from its own set of properties files. The content is deterministic so that
+ * repeated runs of the generator produce identical builds. The time taken by the actions of each generation task
+ * is written to {@value #TASK_TIME_FILE} in the subproject's build directory, so that the plugin's own work can be
+ * measured separately from the startup and configuration of the build. A reference build with the same layout but
+ * without the plugin can also be generated, so that the plugin's share of the configuration time can be measured.
+ * In the reference build, the generation task is replaced by a task that does nothing, with the same timing actions
+ * and also run before compilation, so that the build scripts of both builds do the same work.
+ */
+public final class SyntheticProject {
+
+    /**
+     * Path of the file, relative to a subproject's build directory, containing the time in nanoseconds taken by the
+     * actions of the generation task when it last ran.
+     */
+    public static final String TASK_TIME_FILE = "perf/generate-time.txt";
+
+    private final Path rootDir;
+    private final int numProjects;
+    private final int numFiles;
+    private final int numKeys;
+
+    /**
+     * Constructs a generator for a synthetic build.
+     *
+     * @param rootDir Root directory of the build
+     * @param numProjects Number of subprojects
+     * @param numFiles Number of properties files in each subproject
+     * @param numKeys Number of keys in each properties file
+     */
+    public SyntheticProject(final Path rootDir, final int numProjects, final int numFiles, final int numKeys) {
+        this.rootDir = rootDir;
+        this.numProjects = numProjects;
+        this.numFiles = numFiles;
+        this.numKeys = numKeys;
+    }
+
+    /**
+     * Writes the build files and properties files for the synthetic build.
+     *
+     * @throws IOException if there was a problem writing the files
+     */
+    public void generate() throws IOException {
+        generate(true);
+    }
+
+    /**
+     * Writes the build files and properties files for a reference build that has the same subprojects and
+     * properties files as the synthetic build, but does not apply the plugin. Each subproject has a generation task
+     * that does nothing, so that the reference build configures the same number of tasks.
+     *
+     * @throws IOException if there was a problem writing the files
+     */
+    public void generateReference() throws IOException {
+        generate(false);
+    }
+
+    /**
+     * Writes the build files and properties files.
+     *
+     * @param applyPlugin {@code true} to apply the plugin in each subproject
+     * @throws IOException if there was a problem writing the files
+     */
+    private void generate(final boolean applyPlugin) throws IOException {
+        final StringBuilder settings = new StringBuilder("rootProject.name = \"synthetic\"\n");
+        for (int p = 0; p < this.numProjects; p++) {
+            final String projectName = projectName(p);
+            settings.append("include(\"").append(projectName).append("\")\n");
+
+            final Path projectDir = this.rootDir.resolve(projectName);
+            final Path resourcesDir = projectDir.resolve("src/main/resources");
+            Files.createDirectories(resourcesDir);
+            final String buildFile;
+            if (applyPlugin) {
+                buildFile = String.format("""
+                        plugins {
+                            java
+                            id("org.cthing.property-key-constants")
+                        }
+
+                        tasks {
+                            generatePropertyKeyConstants {
+                                classname = "org.cthing.synthetic.%s.Constants"
+                                source(fileTree("src/main/resources"))
+
+                                val timeFile = layout.buildDirectory.file("%s").get().asFile
+                                var start = 0L
+                                doFirst { start = System.nanoTime() }
+                                doLast {
+                                    timeFile.parentFile.mkdirs()
+                                    timeFile.writeText((System.nanoTime() - start).toString())
+                                }
+                            }
+                        }
+                        """, projectName, TASK_TIME_FILE);
+            } else {
+                buildFile = String.format("""
+                        plugins {
+                            java
+                        }
+
+                        tasks {
+                            val generatePropertyKeyConstants by registering {
+                                val timeFile = layout.buildDirectory.file("%s").get().asFile
+                                var start = 0L
+                                doFirst { start = System.nanoTime() }
+                                doLast {
+                                    timeFile.parentFile.mkdirs()
+                                    timeFile.writeText((System.nanoTime() - start).toString())
+                                }
+                            }
+                            compileJava {
+                                dependsOn(generatePropertyKeyConstants)
+                            }
+                        }
+                        """, TASK_TIME_FILE);
+            }
+            Files.writeString(projectDir.resolve("build.gradle.kts"), buildFile);
+
+            for (int f = 0; f < this.numFiles; f++) {
+                writeProperties(propertiesFile(p, f), f, "value");
+            }
+        }
+        Files.writeString(this.rootDir.resolve("settings.gradle.kts"), settings);
+        Files.writeString(this.rootDir.resolve("gradle.properties"), """
+                org.gradle.parallel=true
+                org.gradle.caching=false
+                """);
+    }
+
+    /**
+     * Adds a new key to the first properties file of the first subproject. This represents a change that
+     * alters the generated source.
+     *
+     * @param iteration Number used to make the new key unique
+     * @throws IOException if there was a problem writing the file
+     */
+    public void addKey(final int iteration) throws IOException {
+        Files.writeString(propertiesFile(0, 0), String.format("added.key%d=added%n", iteration),
+                          StandardCharsets.ISO_8859_1, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Changes only the values in the first properties file of the first subproject. This represents a change
+     * that alters the task inputs but not the generated source.
+     *
+     * @param iteration Number used to make the values unique
+     * @throws IOException if there was a problem writing the file
+     */
+    public void changeValues(final int iteration) throws IOException {
+        writeProperties(propertiesFile(0, 0), 0, "changed" + iteration);
+    }
+
+    /**
+     * Obtains the total time taken by the actions of the generation tasks that ran since the time files were last
+     * deleted, and deletes the time files.
+     *
+     * @return Total task action time in nanoseconds.
+     * @throws IOException if there was a problem reading or deleting a time file
+     */
+    public long collectTaskTime() throws IOException {
+        long total = 0;
+        for (int p = 0; p < this.numProjects; p++) {
+            final Path timeFile = this.rootDir.resolve(projectName(p)).resolve("build").resolve(TASK_TIME_FILE);
+            if (Files.isRegularFile(timeFile)) {
+                total += Long.parseLong(Files.readString(timeFile).trim());
+                Files.delete(timeFile);
+            }
+        }
+        return total;
+    }
+
+    private void writeProperties(final Path file, final int fileIndex, final String value) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            for (int k = 0; k < this.numKeys; k++) {
+                writer.write(String.format("group%d.section%d.key%d=%s %d%n", fileIndex, k % 17, k, value, k));
+            }
+        }
+    }
+
+    private Path propertiesFile(final int projectIndex, final int fileIndex) {
+        return this.rootDir.resolve(projectName(projectIndex))
+                           .resolve("src/main/resources")
+                           .resolve(String.format("bundle%d.properties", fileIndex));
+    }
+
+    private static String projectName(final int projectIndex) {
+        return String.format("module%d", projectIndex);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.InvalidPropertiesFormatException;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+
+public class XmlKeyReaderTest {
+
+    private static final String HEADER = """
+                                         <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+                                         <!DOCTYPE properties SYSTEM "http://java.sun.com/dtd/properties.dtd">
+                                         """;
+
+    @TempDir
+    private Path tempDir;
+
+    public static Stream<Arguments> contentProvider() {
+        return Stream.of(
+                arguments(HEADER + "<properties/>"),
+                arguments(HEADER + "<properties><entry key=\"key1\">value1</entry></properties>"),
+                arguments(HEADER + """
+                                   <properties>
+                                     <comment>A comment</comment>
+                                     <entry key="b">2</entry>
+                                     <entry key="a"/>
+                                     <entry key="c"><![CDATA[<value>]]></entry>
+                                     <!-- comment -->
+                                     <entry key="b">duplicate</entry>
+                                   </properties>
+                                   """),
+                arguments(HEADER + """
+                                   <properties>
+                                     <entry key="&lt;escaped&gt; &amp; &#233;t&#xE9;">value</entry>
+                                     <entry key="été">summer</entry>
+                                     <entry key="">empty key</entry>
+                                   </properties>
+                                   """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("contentProvider")
+    public void testReadKeys(final String content) throws IOException {
+        final Path file = writeFile(content);
+        assertThat(XmlKeyReader.readKeys(file)).isEqualTo(loadKeys(file));
+    }
+
+    @Test
+    public void testStoredProperties() throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("key1", "value1");
+        properties.setProperty("key with spaces", "multi\nline\nvalue");
+        properties.setProperty("ключ", "значение");
+        final Path file = this.tempDir.resolve("stored.xml");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.storeToXML(out, "Stored properties");
+        }
+
+        assertThat(XmlKeyReader.readKeys(file)).containsExactly("key with spaces", "key1", "ключ");
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        for (final String content : List.of("<properties><entry key=\"no.doctype\">value</entry></properties>",
+                                            HEADER + "<other/>",
+                                            HEADER + "<properties><entry>value</entry></properties>",
+                                            HEADER + "<properties><value/></properties>",
+                                            HEADER + "<properties><entry key=\"a\"><b/></entry></properties>",
+                                            HEADER + "<properties><entry key=\"a\">value</properties>",
+                                            "")) {
+            final Path file = writeFile(content);
+            assertThatExceptionOfType(InvalidPropertiesFormatException.class)
+                    .as(content)
+                    .isThrownBy(() -> XmlKeyReader.readKeys(file));
+        }
+    }
+
+    private Path writeFile(final String content) throws IOException {
+        final Path file = Files.createTempFile(this.tempDir, "read", ".xml");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> loadKeys(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.loadFromXML(in);
+        }
+        return properties.stringPropertyNames().stream().sorted().toList();
+    }
+}
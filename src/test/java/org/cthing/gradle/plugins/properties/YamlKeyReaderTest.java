@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.cthing.gradle.plugins.properties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+
+public class YamlKeyReaderTest {
+
+    @TempDir
+    private Path tempDir;
+
+    public static Stream<Arguments> contentProvider() {
+        return Stream.of(
+                arguments("", List.of()),
+                arguments("# only a comment\n", List.of()),
+                arguments("key1: value1\nkey2: value2\n", List.of("key1", "key2")),
+                arguments("key1: value1\r\nkey2: value2", List.of("key1", "key2")),
+                arguments("server.port: 8080\nserver.address: localhost", List.of("server.address", "server.port")),
+                arguments("""
+                          server:
+                            port: 8080
+                            ssl:
+                              enabled: true
+                          app.name: test
+                          """, List.of("app.name", "server.port", "server.ssl.enabled")),
+                arguments("""
+                          a:
+                              b: 1
+                              c:
+                                d: 2
+                              e: 3
+                          f: 4
+                          """, List.of("a.b", "a.c.d", "a.e", "f")),
+                arguments("empty:\nnull: ~\nblank:   # comment\n", List.of("blank", "empty", "null")),
+                arguments("""
+                          list:
+                            - one
+                            - two: 2
+                              three: 3
+                          same.indent:
+                          - one
+                          - two
+                          after: x
+                          """, List.of("after", "list", "same.indent")),
+                arguments("""
+                          literal: |
+                            line one
+                            key: not a key
+                          folded: >-
+                            folded
+                            text
+                          plain: multi
+                            line value
+                          quoted: "multi
+                            line: value"
+                          next: x
+                          """, List.of("folded", "literal", "next", "plain", "quoted")),
+                arguments("flow.map: {a: 1, b: 2}\nflow.list: [1, 2]", List.of("flow.list", "flow.map")),
+                arguments("""
+                          "double quoted": 1
+                          'single quoted': 2
+                          'it''s': 3
+                          "esc\\t\\u00e9\\"": 4
+                          "colon: inside": 5
+                          url: http://example.com
+                          """, List.of("colon: inside", "double quoted", "esc\té\"", "it's", "single quoted", "url")),
+                arguments("""
+                          base: &base
+                            a: 1
+                          tagged: !!map
+                            b: 2
+                          alias: *base
+                          """, List.of("alias", "base.a", "tagged.b")),
+                arguments("""
+                          %YAML 1.2
+                          ---
+                          first: 1
+                          nested:
+                            a: 1
+                          ...
+                          ---
+                          second: 2
+                          """, List.of("first", "nested.a", "second")),
+                arguments("\uFEFFbom: 1", List.of("bom")),
+                arguments("key with spaces  : value\nwith#hash: 1\nété: summer",
+                          List.of("key with spaces", "with#hash", "été")),
+                arguments("  indented:\n    a: 1\n  b: 2", List.of("b", "indented.a"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("contentProvider")
+    public void testReadKeys(final String content, final List<String> expected) throws IOException {
+        assertThat(YamlKeyReader.readKeys(writeFile(content))).isEqualTo(expected);
+    }
+
+    public static Stream<Arguments> unsupportedProvider() {
+        return Stream.of(
+                arguments("- root sequence"),
+                arguments("  a: 1\nb: 2"),
+                arguments("a:\n    b: 1\n  c: 2"),
+                arguments("? explicit\n: value"),
+                arguments("{flow: mapping}"),
+                arguments("base:\n  a: 1\nderived:\n  <<: *base"),
+                arguments("\"unterminated: 1"),
+                arguments("\"bad\\q\": 1"),
+                arguments("not a mapping"),
+                arguments("key:value"),
+                arguments("key # comment: value"),
+                arguments("\tkey: value")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("unsupportedProvider")
+    public void testUnsupported(final String content) throws IOException {
+        final Path file = writeFile(content);
+        assertThatIOException().isThrownBy(() -> YamlKeyReader.readKeys(file))
+                               .withMessageContaining(file.toString());
+    }
+
+    private Path writeFile(final String content) throws IOException {
+        final Path file = Files.createTempFile(this.tempDir, "read", ".yaml");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,8 @@
+plugins {
+    java
+    id("org.cthing.property-key-constants")
+}
+
+propertyKeyConstants {
+    annotationProcessing = true
+}
@@ -0,0 +1,7 @@
+package org.cthing.app;
+
+import org.cthing.gradle.plugins.properties.PropertyKeyConstants;
+
+@PropertyKeyConstants(classname = "org.cthing.test.Constants", files = { "prop1.properties", "prop2.properties" })
+public class App {
+}
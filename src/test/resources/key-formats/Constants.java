@@ -0,0 +1,34 @@
+//
+// DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+//
+
+package org.cthing.test;
+
+/**
+ * Constants for property keys in:
+ * <ul>
+ *   <li>application.yaml</li>
+ *   <li>messages.xml</li>
+ * </ul>
+ */
+@SuppressWarnings("all")
+public final class Constants {
+
+    public static final class Messages {
+        public static final String GREETING_GOODBYE = "greeting.goodbye";
+        public static final String GREETING_HELLO = "greeting.hello";
+
+        private Messages() { }
+    }
+
+    public static final class Application {
+        public static final String APP_NAME = "app.name";
+        public static final String APP_SERVERS = "app.servers";
+        public static final String SERVER_PORT = "server.port";
+        public static final String SERVER_SSL_ENABLED = "server.ssl.enabled";
+
+        private Application() { }
+    }
+
+    private Constants() { }
+}
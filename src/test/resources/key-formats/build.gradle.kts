@@ -0,0 +1,11 @@
+plugins {
+    java
+    id("org.cthing.property-key-constants")
+}
+
+tasks {
+    generatePropertyKeyConstants {
+        classname = "org.cthing.test.Constants"
+        source(file("messages.xml"), file("application.yaml"))
+    }
+}
@@ -0,0 +1,238 @@
+//
+// DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+//
+
+package org.cthing.test;
+
+/**
+ * Constants for property keys in:
+ * <ul>
+ *   <li>prop1.properties</li>
+ *   <li>prop2.properties</li>
+ * </ul>
+ */
+@SuppressWarnings("all")
+public final class Constants {
+
+    public static final class Prop1 {
+        public static final String KEY1 = "key1";
+        public static final String KEY2 = "key2";
+
+        private static final java.util.List<String> keys =
+                java.util.Collections.unmodifiableList(java.util.Arrays.asList(
+                        "key1\000key2".split("\000", -1)));
+        private static volatile java.util.Set<String> keySet;
+
+        /**
+         * Obtains the property keys in ascending order as defined by {@link String#compareTo}.
+         *
+         * @return Unmodifiable list of the property keys.
+         */
+        public static java.util.List<String> keys() {
+            return keys;
+        }
+
+        /**
+         * Determines whether the specified string is one of the property keys.
+         *
+         * @param key String to find
+         * @return {@code true} if the string is a property key.
+         */
+        public static boolean contains(final String key) {
+            return java.util.Collections.binarySearch(keys, key) >= 0;
+        }
+
+        /**
+         * Validates the keys of the specified map (e.g. a {@link java.util.Properties} object)
+         * against the property keys. When the map is a {@link java.util.SortedMap} in natural
+         * order, the keys are compared in a single merge pass. Otherwise, each property key is
+         * looked up in the map, and only if the map has more keys than were found are its keys
+         * looked up in a hash set of the property keys. No intermediate collections are created,
+         * other than the hash set, which is created once. Defaults of a
+         * {@link java.util.Properties} object are not considered.
+         *
+         * @param properties Map whose keys are to be validated
+         * @param missing Called with each property key that is not in the map
+         * @param unknown Called with each key in the map that is not a property key
+         * @return {@code true} if the keys of the map are exactly the property keys.
+         */
+        public static boolean validate(final java.util.Map<?, ?> properties,
+                                        final java.util.function.Consumer<String> missing,
+                                        final java.util.function.Consumer<String> unknown) {
+            boolean valid = true;
+            final int count = keys.size();
+            if (properties instanceof java.util.SortedMap
+                    && ((java.util.SortedMap<?, ?>)properties).comparator() == null) {
+                int index = 0;
+                for (final Object key : properties.keySet()) {
+                    if (key instanceof String) {
+                        final String name = (String)key;
+                        while (index < count && keys.get(index).compareTo(name) < 0) {
+                            missing.accept(keys.get(index++));
+                            valid = false;
+                        }
+                        if (index < count && keys.get(index).equals(name)) {
+                            index++;
+                            continue;
+                        }
+                    }
+                    unknown.accept(String.valueOf(key));
+                    valid = false;
+                }
+                while (index < count) {
+                    missing.accept(keys.get(index++));
+                    valid = false;
+                }
+            } else {
+                int found = 0;
+                for (int index = 0; index < count; index++) {
+                    if (properties.containsKey(keys.get(index))) {
+                        found++;
+                    } else {
+                        missing.accept(keys.get(index));
+                        valid = false;
+                    }
+                }
+                if (found < properties.size()) {
+                    final java.util.Set<String> set = keySet();
+                    for (final Object key : properties.keySet()) {
+                        if (!set.contains(key)) {
+                            unknown.accept(String.valueOf(key));
+                            valid = false;
+                        }
+                    }
+                }
+            }
+            return valid;
+        }
+
+        /**
+         * Obtains the property keys as a hash set, which is created the first time a map that is
+         * not sorted is found to have keys other than the property keys.
+         *
+         * @return Unmodifiable set of the property keys.
+         */
+        private static java.util.Set<String> keySet() {
+            java.util.Set<String> set = keySet;
+            if (set == null) {
+                set = java.util.Collections.unmodifiableSet(new java.util.HashSet<String>(keys));
+                keySet = set;
+            }
+            return set;
+        }
+
+        private Prop1() { }
+    }
+
+    public static final class Prop2 {
+        public static final String ABC_DEF_17 = "abc.def.17";
+        public static final String UVW_XYZ_18 = "uvw.xyz.18";
+
+        private static final java.util.List<String> keys =
+                java.util.Collections.unmodifiableList(java.util.Arrays.asList(
+                        "abc.def.17\000uvw.xyz.18".split("\000", -1)));
+        private static volatile java.util.Set<String> keySet;
+
+        /**
+         * Obtains the property keys in ascending order as defined by {@link String#compareTo}.
+         *
+         * @return Unmodifiable list of the property keys.
+         */
+        public static java.util.List<String> keys() {
+            return keys;
+        }
+
+        /**
+         * Determines whether the specified string is one of the property keys.
+         *
+         * @param key String to find
+         * @return {@code true} if the string is a property key.
+         */
+        public static boolean contains(final String key) {
+            return java.util.Collections.binarySearch(keys, key) >= 0;
+        }
+
+        /**
+         * Validates the keys of the specified map (e.g. a {@link java.util.Properties} object)
+         * against the property keys. When the map is a {@link java.util.SortedMap} in natural
+         * order, the keys are compared in a single merge pass. Otherwise, each property key is
+         * looked up in the map, and only if the map has more keys than were found are its keys
+         * looked up in a hash set of the property keys. No intermediate collections are created,
+         * other than the hash set, which is created once. Defaults of a
+         * {@link java.util.Properties} object are not considered.
+         *
+         * @param properties Map whose keys are to be validated
+         * @param missing Called with each property key that is not in the map
+         * @param unknown Called with each key in the map that is not a property key
+         * @return {@code true} if the keys of the map are exactly the property keys.
+         */
+        public static boolean validate(final java.util.Map<?, ?> properties,
+                                        final java.util.function.Consumer<String> missing,
+                                        final java.util.function.Consumer<String> unknown) {
+            boolean valid = true;
+            final int count = keys.size();
+            if (properties instanceof java.util.SortedMap
+                    && ((java.util.SortedMap<?, ?>)properties).comparator() == null) {
+                int index = 0;
+                for (final Object key : properties.keySet()) {
+                    if (key instanceof String) {
+                        final String name = (String)key;
+                        while (index < count && keys.get(index).compareTo(name) < 0) {
+                            missing.accept(keys.get(index++));
+                            valid = false;
+                        }
+                        if (index < count && keys.get(index).equals(name)) {
+                            index++;
+                            continue;
+                        }
+                    }
+                    unknown.accept(String.valueOf(key));
+                    valid = false;
+                }
+                while (index < count) {
+                    missing.accept(keys.get(index++));
+                    valid = false;
+                }
+            } else {
+                int found = 0;
+                for (int index = 0; index < count; index++) {
+                    if (properties.containsKey(keys.get(index))) {
+                        found++;
+                    } else {
+                        missing.accept(keys.get(index));
+                        valid = false;
+                    }
+                }
+                if (found < properties.size()) {
+                    final java.util.Set<String> set = keySet();
+                    for (final Object key : properties.keySet()) {
+                        if (!set.contains(key)) {
+                            unknown.accept(String.valueOf(key));
+                            valid = false;
+                        }
+                    }
+                }
+            }
+            return valid;
+        }
+
+        /**
+         * Obtains the property keys as a hash set, which is created the first time a map that is
+         * not sorted is found to have keys other than the property keys.
+         *
+         * @return Unmodifiable set of the property keys.
+         */
+        private static java.util.Set<String> keySet() {
+            java.util.Set<String> set = keySet;
+            if (set == null) {
+                set = java.util.Collections.unmodifiableSet(new java.util.HashSet<String>(keys));
+                keySet = set;
+            }
+            return set;
+        }
+
+        private Prop2() { }
+    }
+
+    private Constants() { }
+}
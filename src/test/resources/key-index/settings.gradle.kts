@@ -0,0 +1 @@
+rootProject.name = "key-index"
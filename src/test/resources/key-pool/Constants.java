@@ -0,0 +1,30 @@
+//
+// DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+//
+
+package org.cthing.test;
+
+/**
+ * Constants for property keys in:
+ * <ul>
+ *   <li>prop1.properties</li>
+ *   <li>prop2.properties</li>
+ * </ul>
+ */
+@SuppressWarnings("all")
+public final class Constants {
+
+    public static final class Prop1 {
+        public static final String KEY1 = "key1";
+        public static final String KEY2 = "key2";
+
+        private Prop1() { }
+    }
+
+    public static final class Prop2 extends org.cthing.test.KeyPool.Prop2 {
+
+        private Prop2() { }
+    }
+
+    private Constants() { }
+}
@@ -0,0 +1,17 @@
+plugins {
+    java
+    id("org.cthing.property-key-constants")
+}
+
+propertyKeyConstants {
+    keyPoolClassname = "org.cthing.test.KeyPool"
+    keyPoolSource.from(file("prop2.properties"))
+    generateKeyPool = true
+}
+
+tasks {
+    generatePropertyKeyConstants {
+        classname = "org.cthing.test.Constants"
+        source(file("prop1.properties"), file("prop2.properties"))
+    }
+}
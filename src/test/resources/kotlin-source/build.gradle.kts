@@ -0,0 +1,24 @@
+import org.cthing.gradle.plugins.properties.SourceAccess
+import org.cthing.gradle.plugins.properties.SourceLanguage
+
+plugins {
+    kotlin("jvm") version "2.2.20"
+    id("org.cthing.property-key-constants")
+}
+
+repositories {
+    mavenCentral()
+}
+
+propertyKeyConstants {
+    sourceAccess = SourceAccess.PACKAGE
+    sourceLanguage = SourceLanguage.KOTLIN
+    keyIndex = true
+}
+
+tasks {
+    generatePropertyKeyConstants {
+        classname = "org.cthing.test.Constants"
+        source(file("prop1.properties"), file("prop2.properties"))
+    }
+}
@@ -0,0 +1,9 @@
+package org.cthing.test;
+
+class JavaUsage {
+    static final String KEY = Constants.Prop1.KEY1;
+
+    static boolean isKey(final String key) {
+        return Constants.Prop2.contains(key);
+    }
+}
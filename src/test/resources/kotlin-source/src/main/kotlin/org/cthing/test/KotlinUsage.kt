@@ -0,0 +1,7 @@
+package org.cthing.test
+
+internal object KotlinUsage {
+    const val KEY = Constants.Prop1.KEY1
+
+    fun isKey(key: String): Boolean = Constants.Prop2.contains(key)
+}
@@ -0,0 +1,22 @@
+import org.cthing.gradle.plugins.properties.SourceAccess
+import org.cthing.gradle.plugins.properties.SourceLayout
+
+plugins {
+    java
+    id("org.cthing.property-key-constants")
+}
+
+propertyKeyConstants {
+    classes {
+        create("api") {
+            classname = "org.cthing.test.ApiConstants"
+            source.from(file("prop1.properties"), file("prop2.properties"))
+        }
+        create("internal") {
+            classname = "org.cthing.test.InternalConstants"
+            source.from(file("prop2.properties"))
+            sourceAccess = SourceAccess.PACKAGE
+            sourceLayout = SourceLayout.FLAT_WITH_PREFIX
+        }
+    }
+}
@@ -0,0 +1,61 @@
+//
+// DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+//
+
+package org.cthing.test;
+
+/**
+ * Constants for property keys in:
+ * <ul>
+ *   <li>config.properties</li>
+ *   <li>prop1.properties</li>
+ * </ul>
+ */
+@SuppressWarnings("all")
+public final class Constants {
+
+    public static final String APP_NAME = "app.name";
+    public static final String DB = "db";
+    public static final String KEY1 = "key1";
+    public static final String KEY2 = "key2";
+
+    public static final class Db {
+        public static final String URL = "db.url";
+
+        public static final class Pool {
+            public static final String MAX_SIZE = "db.pool.max.size";
+            public static final String MIN_SIZE = "db.pool.min.size";
+
+            private Pool() { }
+        }
+
+        private Db() { }
+    }
+
+    public static final class Error {
+
+        public static final class _404 {
+            public static final String BODY = "error.404.body";
+            public static final String TITLE = "error.404.title";
+
+            private _404() { }
+        }
+
+        private Error() { }
+    }
+
+    public static final class Validation {
+        public static final String OTHER = "validation.other";
+
+        public static final class String_ {
+            public static final String MAX = "validation.string.max";
+            public static final String MIN = "validation.string.min";
+
+            private String_() { }
+        }
+
+        private Validation() { }
+    }
+
+    private Constants() { }
+}
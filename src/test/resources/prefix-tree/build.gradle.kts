@@ -0,0 +1,17 @@
+import org.cthing.gradle.plugins.properties.SourceLayout
+
+plugins {
+    java
+    id("org.cthing.property-key-constants")
+}
+
+propertyKeyConstants {
+    sourceLayout = SourceLayout.PREFIX_TREE
+}
+
+tasks {
+    generatePropertyKeyConstants {
+        classname = "org.cthing.test.Constants"
+        source(file("config.properties"), file("prop1.properties"))
+    }
+}
@@ -0,0 +1,24 @@
+//
+// DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+//
+
+package org.cthing.test;
+
+/**
+ * Constants for property keys in:
+ * <ul>
+ *   <li>prop2.properties</li>
+ * </ul>
+ */
+@SuppressWarnings("all")
+public final class ConstantsShard0 {
+
+    public static final class Prop2 {
+        public static final String ABC_DEF_17 = "abc.def.17";
+        public static final String UVW_XYZ_18 = "uvw.xyz.18";
+
+        private Prop2() { }
+    }
+
+    private ConstantsShard0() { }
+}
@@ -0,0 +1,24 @@
+//
+// DO NOT EDIT - File generated by the org.cthing.property-key-constants Gradle plugin.
+//
+
+package org.cthing.test;
+
+/**
+ * Constants for property keys in:
+ * <ul>
+ *   <li>prop1.properties</li>
+ * </ul>
+ */
+@SuppressWarnings("all")
+public final class ConstantsShard1 {
+
+    public static final class Prop1 {
+        public static final String KEY1 = "key1";
+        public static final String KEY2 = "key2";
+
+        private Prop1() { }
+    }
+
+    private ConstantsShard1() { }
+}
@@ -0,0 +1,15 @@
+plugins {
+    java
+    id("org.cthing.property-key-constants")
+}
+
+propertyKeyConstants {
+    shardCount = 2
+}
+
+tasks {
+    generatePropertyKeyConstants {
+        classname = "org.cthing.test.Constants"
+        source(file("prop1.properties"), file("prop2.properties"))
+    }
+}